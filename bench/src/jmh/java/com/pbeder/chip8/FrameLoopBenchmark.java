@@ -0,0 +1,52 @@
+package com.pbeder.chip8;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+// Whole frames of real ROMs from the roms module, the way Application drives the emulator.
+// Idle loop skipping is off, otherwise frames spent in delay loops would be measured as free.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FrameLoopBenchmark {
+
+    private static final int INSTRUCTIONS_PER_FRAME = 4;
+    private static final int FRAMES_PER_INVOCATION = 60;
+
+    @Param({"PONG", "INVADERS", "TETRIS", "BRIX"})
+    public String rom;
+
+    @Param({"SWITCH", "TABLE"})
+    public DispatchMode dispatchMode;
+
+    private Chip8 chip8;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        chip8 = new Chip8(() -> {}, 0xC8L);
+        chip8.setDispatchMode(dispatchMode);
+        chip8.setIdleLoopSkipping(false);
+        chip8.loadFromBytes(readRom(rom));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAMES_PER_INVOCATION)
+    public short stepTimes() {
+        for (int i = 0; i < FRAMES_PER_INVOCATION; i++) {
+            chip8.stepTimes(INSTRUCTIONS_PER_FRAME);
+        }
+        return chip8.pc;
+    }
+
+    private static byte[] readRom(String name) throws IOException {
+        try (InputStream in = FrameLoopBenchmark.class.getResourceAsStream("/roms/" + name)) {
+            if (in == null) {
+                throw new IOException("ROM not found on classpath: " + name);
+            }
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.pbeder.chip8;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Throughput of a single opcode executed over and over, registers and I keep every opcode in bounds
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OpcodeBenchmark {
+
+    private static final short SPRITE_ADDRESS = 0x300;
+
+    @Param({
+            "8014", "8015", "8016", "8017", "801E", // ALU 8xyN
+            "3012", "4012", "5010", "E09E", "E0A1", // skips
+            "D015",                                 // DRW
+            "F033", "F555", "F565"                  // BCD and register store/load
+    })
+    public String opcode;
+
+    @Param({"SWITCH", "TABLE"})
+    public DispatchMode dispatchMode;
+
+    private Chip8 chip8;
+    private short parsedOpcode;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        chip8 = new Chip8(() -> {}, 0xC8L);
+        chip8.setDispatchMode(dispatchMode);
+        chip8.I = SPRITE_ADDRESS;
+        chip8.registers[0] = 0x3;
+        chip8.registers[1] = 0x7;
+        parsedOpcode = (short) Integer.parseInt(opcode, 16);
+    }
+
+    @Benchmark
+    public byte execute() {
+        chip8.registers[0] &= 0xF;
+        chip8.handleOpcode(parsedOpcode);
+        return chip8.registers[0xF];
+    }
+}
@@ -0,0 +1,42 @@
+package com.pbeder.chip8;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ScreenBenchmark {
+
+    private static final byte[] SPRITE = {
+            (byte) 0x3C, (byte) 0x7E, (byte) 0xFF, (byte) 0xDB, (byte) 0xFF,
+            (byte) 0x24, (byte) 0x5A, (byte) 0xA5, (byte) 0x42, (byte) 0x81,
+            (byte) 0x18, (byte) 0x3C, (byte) 0x7E, (byte) 0xFF, (byte) 0x66};
+
+    private Screen screen;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        screen = new Screen(new Chip8(() -> {}));
+    }
+
+    @Benchmark
+    public long drawSprite() {
+        screen.drawSprite((byte) 20, (byte) 8, SPRITE, 0, SPRITE.length);
+        return screen.getRow(8);
+    }
+
+    // Crosses both the right and the bottom edge
+    @Benchmark
+    public long drawSpriteWrapped() {
+        screen.drawSprite((byte) 60, (byte) 28, SPRITE, 0, SPRITE.length);
+        return screen.getRow(0);
+    }
+
+    @Benchmark
+    public long clear() {
+        screen.clear();
+        return screen.getRow(0);
+    }
+}
@@ -3,50 +3,121 @@ package com.pbeder;
 import com.badlogic.gdx.ApplicationAdapter;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.audio.Sound;
-import com.badlogic.gdx.graphics.FPSLogger;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.OrthographicCamera;
-import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
 import com.badlogic.gdx.utils.viewport.StretchViewport;
 import com.badlogic.gdx.utils.viewport.Viewport;
 import com.pbeder.chip8.Chip8;
+import com.pbeder.chip8.Emulator;
+import com.pbeder.chip8.Frame;
+import com.pbeder.chip8.Metrics;
+import com.pbeder.chip8.MetricsServer;
+import com.pbeder.chip8.MovieRecorder;
+import com.pbeder.chip8.Rewind;
+import com.pbeder.chip8.RunAhead;
+import com.pbeder.chip8.Scheduler;
+import com.pbeder.chip8.SessionEvent;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
 
 import static com.badlogic.gdx.Gdx.*;
-import static com.badlogic.gdx.graphics.glutils.ShapeRenderer.ShapeType.Filled;
 import static com.pbeder.chip8.Chip8.SCREEN_HEIGHT;
 import static com.pbeder.chip8.Chip8.SCREEN_WIDTH;
 
 public class Application extends ApplicationAdapter {
     public static final int WORLD_WIDTH = SCREEN_WIDTH;
     public static final int WORLD_HEIGHT = SCREEN_HEIGHT;
+    public static final int DEFAULT_REWIND_SECONDS = 60;
     private static final String LOG = Application.class.getSimpleName();
     private final File file;
+    private final int cpuFrequency;
+    private final int rewindSeconds;
+    private final int runAheadFrames;
+    private File movie;
+    private int metricsPort = -1;
+    private MetricsServer metricsServer;
+    private MovieRecorder recorder;
     private Chip8 chip8;
-    private ShapeRenderer shapeRenderer;
+    private Emulator emulator;
+    private FrameRenderer renderer;
     private Viewport viewport;
-    private FPSLogger fps;
+    private PerformanceOverlay overlay;
+    // Reused while JFR does not record it, a new one is only needed once one was committed
+    private RenderEvent renderEvent = new RenderEvent();
 
     public Application(String path) {
+        this(path, Scheduler.DEFAULT_CPU_FREQUENCY);
+    }
+
+    public Application(String path, int cpuFrequency) {
+        this(path, cpuFrequency, DEFAULT_REWIND_SECONDS);
+    }
+
+    public Application(String path, int cpuFrequency, int rewindSeconds) {
+        this(path, cpuFrequency, rewindSeconds, 0);
+    }
+
+    // rewindSeconds and runAheadFrames of 0 turn rewinding and run-ahead off
+    public Application(String path, int cpuFrequency, int rewindSeconds, int runAheadFrames) {
         file = new File(path);
+        this.cpuFrequency = cpuFrequency;
+        this.rewindSeconds = rewindSeconds;
+        this.runAheadFrames = runAheadFrames;
     }
 
 
     @Override
     public void create() {
         app.log(LOG, "Creating game");
-        fps = new FPSLogger();
         chip8();
         camera();
+        emulator.start();
+    }
+
+    // Records the session into a movie file for the headless replay, rewinding is off while recording
+    public Application recordTo(File movie) {
+        this.movie = movie;
+        return this;
+    }
+
+    // Serves Prometheus metrics on localhost, port 0 picks a free one
+    public Application serveMetricsOn(int port) {
+        this.metricsPort = port;
+        return this;
     }
 
     private void chip8() {
 //        Sound sound = Gdx.audio.newSound(Gdx.files.internal("core/out/production/resources/sounds/beep.wav"));
         Sound sound = audio.newSound(Gdx.files.internal("sounds/beep.wav"));
         chip8 = new Chip8(sound::play);
-        chip8.loadFromFile(file);
-        InputProcessor keyboard = new InputProcessor(chip8);
+        byte[] rom = readRom();
+        chip8.loadFromBytes(rom);
+        if (movie != null) {
+            startRecording(rom);
+        }
+        if (metricsPort >= 0) {
+            serveMetrics();
+        }
+        Scheduler scheduler = new Scheduler(chip8, cpuFrequency);
+        emulator = new Emulator(chip8, scheduler);
+        if (rewindSeconds > 0 && recorder == null) {
+            emulator.setRewind(new Rewind(rewindSeconds));
+        }
+        if (runAheadFrames > 0) {
+            emulator.setRunAhead(new RunAhead(runAheadFrames));
+        }
+        SessionEvent.commit(file.getName(), chip8, cpuFrequency, recorder == null ? rewindSeconds : 0, runAheadFrames);
+        // Frames published while rendering is not continuous still have to be presented
+        emulator.setFrameListener(graphics::requestRendering);
+        overlay = new PerformanceOverlay(emulator, scheduler, graphics.getWidth(), graphics.getHeight());
+        InputProcessor keyboard = new InputProcessor(emulator, overlay);
         Gdx.input.setInputProcessor(keyboard);
     }
 
@@ -55,38 +126,97 @@ public class Application extends ApplicationAdapter {
         camera.setToOrtho(true);
         viewport = new StretchViewport(WORLD_WIDTH, WORLD_HEIGHT, camera);
         viewport.apply(true);
-        shapeRenderer = new ShapeRenderer();
-        shapeRenderer.setProjectionMatrix(camera.combined);
+        renderer = new FrameRenderer(camera.combined);
     }
 
     @Override
     public void render() {
-        chip8.stepTimes(4);
-        draw(chip8.getScreen());
-        fps.log();
+        // Emulation runs on its own thread, render() only presents whatever the latest frame is
+        // Nothing changes while the ROM waits for a key, so only render on request until one is pressed
+        graphics.setContinuousRendering(!emulator.isWaitingForKey());
+        Frame frame = emulator.acquireFrame();
+        draw(frame);
+        overlay.render(frame, graphics.isContinuousRendering());
     }
 
     @Override
     public void resize(int width, int height) {
         viewport.update(width, height);
+        overlay.resize(width, height);
         super.render();
     }
 
     @Override
     public void dispose() {
         app.log(LOG, "Disposing game");
+        emulator.stop();
+        logRunAheadCost();
+        stopRecording();
+        if (metricsServer != null) {
+            metricsServer.close();
+        }
+        renderer.dispose();
+        overlay.dispose();
     }
 
-    private void draw(boolean[][] screen) {
-        gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
-        shapeRenderer.begin(Filled);
-        for (int y = 0; y < WORLD_HEIGHT; y++) {
-            for (int x = 0; x < WORLD_WIDTH; x++) {
-                if (screen[y][x]) {
-                    shapeRenderer.rect(x, y, 1, 1);
-                }
+    private byte[] readRom() {
+        try {
+            return Files.readAllBytes(file.toPath());
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Could not read ROM " + file, e);
+        }
+    }
+
+    private void startRecording(byte[] rom) {
+        try {
+            FileChannel channel = FileChannel.open(movie.toPath(), CREATE, TRUNCATE_EXISTING, WRITE);
+            recorder = MovieRecorder.start(chip8, rom, cpuFrequency, channel);
+            app.log(LOG, "Recording movie to " + movie);
+        } catch (IOException e) {
+            app.error(LOG, "Could not create movie " + movie, e);
+        }
+    }
+
+    private void serveMetrics() {
+        Metrics metrics = new Metrics();
+        metrics.register(chip8);
+        try {
+            metricsServer = MetricsServer.start(metrics, metricsPort);
+            app.log(LOG, "Metrics at http://localhost:" + metricsServer.getPort() + "/metrics");
+        } catch (IOException e) {
+            app.error(LOG, "Could not serve metrics on port " + metricsPort, e);
+        }
+    }
+
+    private void stopRecording() {
+        if (recorder != null) {
+            try {
+                recorder.close();
+            } catch (IOException e) {
+                app.error(LOG, "Could not finish movie " + movie, e);
             }
         }
-        shapeRenderer.end();
+    }
+
+    private void logRunAheadCost() {
+        RunAhead runAhead = emulator.getRunAhead();
+        if (runAhead != null) {
+            long emulation = emulator.getEmulationNanos();
+            long speculative = runAhead.getSpeculativeNanos();
+            app.log(LOG, String.format("Run-ahead of %d frames: %d frames thrown away, %.1f ms on top of %.1f ms emulation (+%.0f%%)",
+                    runAhead.getFrames(), runAhead.getSpeculativeFrames(), speculative / 1e6, emulation / 1e6,
+                    100.0 * speculative / Math.max(1, emulation)));
+        }
+    }
+
+    private void draw(Frame frame) {
+        renderEvent.begin();
+        gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
+        renderer.render(frame);
+        if (renderEvent.shouldCommit()) {
+            renderEvent.frame = frame.getNumber();
+            renderEvent.commit();
+            renderEvent = new RenderEvent();
+        }
     }
 }
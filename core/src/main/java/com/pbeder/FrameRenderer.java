@@ -0,0 +1,91 @@
+package com.pbeder;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.utils.Disposable;
+import com.pbeder.chip8.Frame;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static com.pbeder.chip8.Chip8.SCREEN_HEIGHT;
+import static com.pbeder.chip8.Chip8.SCREEN_WIDTH;
+
+// Uploads the 64x32 frame into a single texture and draws it as one scaled quad,
+// only the band of rows that changed since the last uploaded frame is written and sent to the GPU
+class FrameRenderer implements Disposable {
+    private static final int PIXEL_ON = 0xFFFFFFFF;
+    private static final int PIXEL_OFF = 0x000000FF;
+    private static final int BYTES_PER_PIXEL = 4;
+    private static final int BYTES_PER_ROW = SCREEN_WIDTH * BYTES_PER_PIXEL;
+    private static final long NOTHING_UPLOADED = Long.MIN_VALUE;
+    private final Pixmap pixmap;
+    private final ByteBuffer pixels;
+    private final Texture texture;
+    private final SpriteBatch batch;
+    private long uploadedVersion = NOTHING_UPLOADED;
+
+    FrameRenderer(Matrix4 projection) {
+        this(new Pixmap(SCREEN_WIDTH, SCREEN_HEIGHT, Pixmap.Format.RGBA8888), projection);
+    }
+
+    private FrameRenderer(Pixmap pixmap, Matrix4 projection) {
+        this(pixmap, new Texture(pixmap), new SpriteBatch(1), projection);
+    }
+
+    // Tests hand in mocks, the texture has to be the one made from the pixmap
+    FrameRenderer(Pixmap pixmap, Texture texture, SpriteBatch batch, Matrix4 projection) {
+        this.pixmap = pixmap;
+        this.pixels = pixmap.getPixels().order(ByteOrder.BIG_ENDIAN);
+        this.texture = texture;
+        this.batch = batch;
+        texture.setFilter(Texture.TextureFilter.Nearest, Texture.TextureFilter.Nearest);
+        batch.setProjectionMatrix(projection);
+    }
+
+    void render(Frame frame) {
+        int dirtyRows = frame.dirtyRowsSince(uploadedVersion);
+        if (dirtyRows != 0) {
+            upload(frame, dirtyRows);
+        }
+        batch.begin();
+        // Camera is y-down, texture rows are stored top to bottom
+        batch.draw(texture, 0, 0, SCREEN_WIDTH, SCREEN_HEIGHT, 0, 0, SCREEN_WIDTH, SCREEN_HEIGHT, false, true);
+        batch.end();
+    }
+
+    private void upload(Frame frame, int dirtyRows) {
+        int first = Integer.numberOfTrailingZeros(dirtyRows);
+        int last = Integer.SIZE - 1 - Integer.numberOfLeadingZeros(dirtyRows);
+        for (int y = first; y <= last; y++) {
+            if ((dirtyRows & (1 << y)) != 0) {
+                writeRow(y, frame.getRow(y));
+            }
+        }
+        texture.bind();
+        Gdx.gl.glPixelStorei(GL20.GL_UNPACK_ALIGNMENT, 1);
+        pixels.position(first * BYTES_PER_ROW);
+        Gdx.gl.glTexSubImage2D(GL20.GL_TEXTURE_2D, 0, 0, first, SCREEN_WIDTH, last - first + 1,
+                GL20.GL_RGBA, GL20.GL_UNSIGNED_BYTE, pixels);
+        pixels.position(0);
+        uploadedVersion = frame.getVersion();
+    }
+
+    private void writeRow(int y, long row) {
+        int offset = y * BYTES_PER_ROW;
+        for (int x = 0; x < SCREEN_WIDTH; x++, row <<= 1) {
+            pixels.putInt(offset + x * BYTES_PER_PIXEL, row < 0 ? PIXEL_ON : PIXEL_OFF);
+        }
+    }
+
+    @Override
+    public void dispose() {
+        batch.dispose();
+        texture.dispose();
+        pixmap.dispose();
+    }
+}
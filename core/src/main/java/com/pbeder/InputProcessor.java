@@ -1,33 +1,61 @@
 package com.pbeder;
 
 import com.badlogic.gdx.InputAdapter;
-import com.pbeder.chip8.Chip8;
+import com.pbeder.chip8.Emulator;
+
+import java.nio.file.Paths;
 
 import static com.badlogic.gdx.Input.Keys.*;
 
+// Runs on the GL thread, Emulator.setKey is safe to call while the emulation thread is running
 public class InputProcessor extends InputAdapter {
 
     private static final int INVALID_INPUT = 0x10;
-    private Chip8 chip8;
+    // Hold to step back through recorded frames
+    private static final int REWIND = BACKSPACE;
+    // Writes the instruction trace when running with -Dchip8.trace=true
+    private static final int DUMP_TRACE = F12;
+    private static final String TRACE_FILE = System.getProperty("chip8.trace.file", "chip8-trace.bin");
+    // Shows or hides frame times, emulation speed and timer accuracy
+    private static final int TOGGLE_OVERLAY = F3;
+    private Emulator emulator;
+    private PerformanceOverlay overlay;
 
-    InputProcessor(Chip8 chip8) {
-        this.chip8 = chip8;
+    InputProcessor(Emulator emulator, PerformanceOverlay overlay) {
+        this.emulator = emulator;
+        this.overlay = overlay;
     }
 
     @Override
     public boolean keyDown(int keyCode) {
+        if (keyCode == REWIND) {
+            emulator.setRewinding(true);
+            return true;
+        }
+        if (keyCode == DUMP_TRACE) {
+            emulator.requestTraceDump(Paths.get(TRACE_FILE));
+            return true;
+        }
+        if (keyCode == TOGGLE_OVERLAY) {
+            overlay.toggle();
+            return true;
+        }
         byte b = toKey(keyCode);
         if (b != INVALID_INPUT) {
-            chip8.setKey(b, true);
+            emulator.setKey(b, true);
         }
         return true;
     }
 
     @Override
     public boolean keyUp(int keyCode) {
+        if (keyCode == REWIND) {
+            emulator.setRewinding(false);
+            return true;
+        }
         byte b = toKey(keyCode);
         if (b != INVALID_INPUT) {
-            chip8.setKey(b, false);
+            emulator.setKey(b, false);
         }
         return true;
     }
@@ -0,0 +1,121 @@
+package com.pbeder;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.utils.Disposable;
+import com.pbeder.chip8.Emulator;
+import com.pbeder.chip8.Frame;
+import com.pbeder.chip8.FrameTimeHistogram;
+import com.pbeder.chip8.Scheduler;
+
+// Frame time percentiles, emulation speed and timer accuracy over the top left corner of the window, toggled with F3.
+// Times are recorded whether it is shown or not, so it shows the last seconds as soon as it is turned on.
+class PerformanceOverlay implements Disposable {
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final int WINDOW_SECONDS = 5;
+    private static final long FRAME_NANOS = NANOS_PER_SECOND / Scheduler.TIMER_FREQUENCY;
+    // Shown for more than one and a half frames at 60 Hz, noticeable as a stutter
+    private static final long LATE_FRAME_NANOS = FRAME_NANOS * 3 / 2;
+    private static final long TEXT_UPDATE_NANOS = NANOS_PER_SECOND / 4;
+    private static final long NONE = Long.MIN_VALUE;
+    private static final float MARGIN = 8;
+    private final FrameTimeHistogram frameTimes = new FrameTimeHistogram(WINDOW_SECONDS * Scheduler.TIMER_FREQUENCY);
+    private final FrameTimeHistogram tickLateness;
+    private final Emulator emulator;
+    private final int cpuFrequency;
+    private final SpriteBatch batch = new SpriteBatch();
+    private final BitmapFont font = new BitmapFont();
+    // Rebuilt in place a few times per second, drawing it every frame allocates nothing
+    private final StringBuilder text = new StringBuilder();
+    private boolean visible;
+    private float height;
+    private long lastRender = NONE;
+    private long seenVersion = NONE;
+    private long droppedFrames;
+    private long textUpdatedAt = NONE;
+    private long instructionsAtTextUpdate;
+    private long idleInstructionsAtTextUpdate;
+
+    PerformanceOverlay(Emulator emulator, Scheduler scheduler, int width, int height) {
+        this.emulator = emulator;
+        this.tickLateness = scheduler.getTickLateness();
+        this.cpuFrequency = scheduler.getCpuFrequency();
+        font.setColor(Color.YELLOW);
+        resize(width, height);
+    }
+
+    void toggle() {
+        visible = !visible;
+    }
+
+    // Call once per rendered frame, gaps while rendering was not continuous are not frame times
+    void render(Frame frame, boolean continuous) {
+        long now = System.nanoTime();
+        if (continuous && lastRender != NONE) {
+            frameTimes.record(now - lastRender);
+        }
+        lastRender = continuous ? now : NONE;
+        if (frame.getVersion() != seenVersion) {
+            // Published and replaced before it was ever acquired
+            if (seenVersion != NONE && frame.getPreviousVersion() != seenVersion) {
+                droppedFrames++;
+            }
+            seenVersion = frame.getVersion();
+        }
+        if (textUpdatedAt == NONE || now - textUpdatedAt >= TEXT_UPDATE_NANOS) {
+            updateText(now);
+        }
+        if (visible) {
+            batch.begin();
+            font.draw(batch, text, MARGIN, height - MARGIN);
+            batch.end();
+        }
+    }
+
+    private void updateText(long now) {
+        long instructions = emulator.getInstructionCount();
+        long idleInstructions = emulator.getIdleInstructionsSkipped();
+        long instructionsPerSecond = perSecond(instructions - instructionsAtTextUpdate, now);
+        long idleInstructionsPerSecond = perSecond(idleInstructions - idleInstructionsAtTextUpdate, now);
+        textUpdatedAt = now;
+        instructionsAtTextUpdate = instructions;
+        idleInstructionsAtTextUpdate = idleInstructions;
+        text.setLength(0);
+        text.append("frame  p50 ");
+        appendMillis(frameTimes.percentile(50)).append("  p99 ");
+        appendMillis(frameTimes.percentile(99)).append("  max ");
+        appendMillis(frameTimes.max()).append(" ms\n");
+        text.append("late   ").append(frameTimes.countAbove(LATE_FRAME_NANOS)).append(" in ").append(WINDOW_SECONDS)
+                .append(" s, ").append(droppedFrames).append(" dropped\n");
+        text.append("emu    ").append(instructionsPerSecond).append(" instructions/s of ").append(cpuFrequency)
+                .append(", ").append(idleInstructionsPerSecond).append(" skipped as idle\n");
+        text.append("ticks  p99 ");
+        appendMillis(tickLateness.percentile(99)).append("  max ");
+        appendMillis(tickLateness.max()).append(" ms late");
+    }
+
+    // Rewinding sets the counters back, that is no emulation speed either
+    private long perSecond(long delta, long now) {
+        if (textUpdatedAt == NONE || delta < 0) {
+            return 0;
+        }
+        return delta * NANOS_PER_SECOND / Math.max(1, now - textUpdatedAt);
+    }
+
+    private StringBuilder appendMillis(long nanos) {
+        long tenths = (nanos + 50_000) / 100_000;
+        return text.append(tenths / 10).append('.').append(tenths % 10);
+    }
+
+    void resize(int width, int height) {
+        this.height = height;
+        batch.getProjectionMatrix().setToOrtho2D(0, 0, width, height);
+    }
+
+    @Override
+    public void dispose() {
+        font.dispose();
+        batch.dispose();
+    }
+}
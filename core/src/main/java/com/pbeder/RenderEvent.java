@@ -0,0 +1,20 @@
+package com.pbeder;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Spans Application.draw, next to the emulator's Frame events it shows whether a hitch came from rendering or emulation
+@Name("com.pbeder.Render")
+@Label("Render")
+@Category("Chip-8")
+@Description("Presenting the latest published frame")
+@StackTrace(false)
+class RenderEvent extends Event {
+    @Label("Frame")
+    @Description("Emulated frame that was presented")
+    long frame;
+}
@@ -0,0 +1,95 @@
+package com.pbeder;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.math.Matrix4;
+import com.pbeder.chip8.Frame;
+import org.hamcrest.core.Is;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+import static com.pbeder.chip8.Chip8.SCREEN_HEIGHT;
+import static com.pbeder.chip8.Chip8.SCREEN_WIDTH;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Gdx.gl is a mock recording every call, the texture and batch are mocks as well so nothing needs a GL context
+public class FrameRendererTest {
+
+    private static final int BYTES_PER_PIXEL = 4;
+    private final ByteBuffer pixels = ByteBuffer.allocateDirect(SCREEN_WIDTH * SCREEN_HEIGHT * BYTES_PER_PIXEL);
+    private final GL20 gl = mock(GL20.class);
+    private FrameRenderer renderer;
+
+    @Before
+    public void setUp() {
+        Gdx.gl = gl;
+        Gdx.gl20 = gl;
+        Pixmap pixmap = mock(Pixmap.class);
+        when(pixmap.getPixels()).thenReturn(pixels);
+        renderer = new FrameRenderer(pixmap, mock(Texture.class), mock(SpriteBatch.class), new Matrix4());
+    }
+
+    @After
+    public void tearDown() {
+        Gdx.gl = null;
+        Gdx.gl20 = null;
+    }
+
+    @Test
+    public void shouldNotUploadUnchangedFrame() {
+        //Given
+        Frame frame = frame(1, Long.MIN_VALUE, Frame.ALL_ROWS);
+        renderer.render(frame);
+        clearInvocations(gl);
+        //When
+        renderer.render(frame);
+        renderer.render(frame);
+        //Then
+        verify(gl, never()).glTexSubImage2D(anyInt(), anyInt(), anyInt(), anyInt(), anyInt(), anyInt(), anyInt(), anyInt(), any(Buffer.class));
+    }
+
+    @Test
+    public void shouldUploadDirtyBandInOneSubImage() {
+        //Given
+        renderer.render(frame(1, Long.MIN_VALUE, Frame.ALL_ROWS));
+        clearInvocations(gl);
+        // Rows 3 and 5 changed, row 4 in between goes along with them
+        Frame changed = frame(2, 1, 0b101000);
+        when(changed.getRow(3)).thenReturn(Long.MIN_VALUE);
+        //When
+        renderer.render(changed);
+        //Then
+        verify(gl).glTexSubImage2D(eq(GL20.GL_TEXTURE_2D), eq(0), eq(0), eq(3), eq(SCREEN_WIDTH), eq(3),
+                eq(GL20.GL_RGBA), eq(GL20.GL_UNSIGNED_BYTE), any(Buffer.class));
+        verify(gl, times(1)).glTexSubImage2D(anyInt(), anyInt(), anyInt(), anyInt(), anyInt(), anyInt(), anyInt(), anyInt(), any(Buffer.class));
+        assertThat(pixels.getInt(3 * SCREEN_WIDTH * BYTES_PER_PIXEL), Is.is(0xFFFFFFFF));
+        assertThat(pixels.getInt(3 * SCREEN_WIDTH * BYTES_PER_PIXEL + BYTES_PER_PIXEL), Is.is(0x000000FF));
+    }
+
+    // Frame is captured inside the emulator only, so the renderer sees a mock answering like one published after seenVersion
+    private static Frame frame(long version, long seenVersion, int dirtyRows) {
+        Frame frame = mock(Frame.class);
+        when(frame.getVersion()).thenReturn(version);
+        when(frame.dirtyRowsSince(anyLong())).thenReturn(Frame.ALL_ROWS);
+        when(frame.dirtyRowsSince(seenVersion)).thenReturn(dirtyRows);
+        when(frame.dirtyRowsSince(version)).thenReturn(0);
+        return frame;
+    }
+}
@@ -3,8 +3,10 @@ package com.pbeder.desktop;
 import com.badlogic.gdx.backends.lwjgl.LwjglApplication;
 import com.badlogic.gdx.backends.lwjgl.LwjglApplicationConfiguration;
 import com.pbeder.Application;
+import com.pbeder.chip8.Scheduler;
 
 import java.awt.*;
+import java.io.File;
 
 public class DesktopLauncher {
     public static void main(String[] arg) {
@@ -17,7 +19,21 @@ public class DesktopLauncher {
         config.title = "Chip8";
         config.width = Application.WORLD_WIDTH * 20;
         config.height = Application.WORLD_HEIGHT * 20;
-        new LwjglApplication(new Application(file), config);
+        int cpuFrequency = Integer.getInteger("chip8.cpuFrequency", Scheduler.DEFAULT_CPU_FREQUENCY);
+        int rewindSeconds = Integer.getInteger("chip8.rewindSeconds", Application.DEFAULT_REWIND_SECONDS);
+        // e.g. -Dchip8.runAhead=1 for every ROM or -Dchip8.runAhead.PONG=2 for a single one
+        String rom = new File(file).getName();
+        int runAheadFrames = Integer.getInteger("chip8.runAhead." + rom, Integer.getInteger("chip8.runAhead", 0));
+        Application application = new Application(file, cpuFrequency, rewindSeconds, runAheadFrames);
+        String movie = System.getProperty("chip8.record");
+        if (movie != null) {
+            application.recordTo(new File(movie));
+        }
+        Integer metricsPort = Integer.getInteger("chip8.metrics.port");
+        if (metricsPort != null) {
+            application.serveMetricsOn(metricsPort);
+        }
+        new LwjglApplication(application, config);
     }
 
     private static String selectRom() {
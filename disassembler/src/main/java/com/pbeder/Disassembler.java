@@ -2,18 +2,75 @@ package com.pbeder;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.List;
 
 import static java.nio.file.Files.readAllBytes;
 
 public class Disassembler {
     private static final Decoder decoder = new Decoder();
     private static final AsciiDecoder ascii = new AsciiDecoder();
+    private static final int MEMORY_SIZE = 4096;
 
     public static void main(String[] args) throws IOException {
+        if (args.length == 2 && args[0].equals("--trace")) {
+            TraceReader.main(new String[]{args[1]});
+            return;
+        }
         validateInput(args);
         byte[] bytes = readFile(args[0]);
-        iterateBytes(bytes);
+        if (args.length == 3 && args[1].equals("--flamegraph")) {
+            labelStacks(bytes, args[2]);
+            return;
+        }
+        long[] counts = args.length == 3 ? readHeatMap(args[2]) : null;
+        iterateBytes(bytes, counts);
+    }
+
+    // address,count lines as written by the emulator's Profiler, e.g. headless --profile
+    private static long[] readHeatMap(String file) throws IOException {
+        long[] counts = new long[MEMORY_SIZE];
+        List<String> lines = Files.readAllLines(Paths.get(file));
+        // First line is the header, an empty file is an empty heat map
+        for (int i = 1; i < lines.size(); i++) {
+            String[] columns = lines.get(i).split(",");
+            counts[Integer.decode(columns[0]) & 0xFFF] = Long.parseLong(columns[1]);
+        }
+        return counts;
+    }
+
+    // Collapsed stacks as written by the emulator's Profiler, every routine address gets the instruction it starts with,
+    // e.g. "main;0x2f0 1234" becomes "main;0x2f0 LD I, 2ea 1234", ready for flamegraph.pl
+    private static void labelStacks(byte[] bytes, String file) throws IOException {
+        List<String> lines = Files.readAllLines(Paths.get(file));
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            int count = line.lastIndexOf(' ');
+            if (count <= 0 || !isCount(line.substring(count + 1))) {
+                // stdout goes to flamegraph.pl, the line is reported next to it and left out
+                System.err.println("Line " + (i + 1) + " is not a stack followed by a count: " + line);
+                continue;
+            }
+            StringBuilder labelled = new StringBuilder();
+            for (String frame : line.substring(0, count).split(";")) {
+                labelled.append(labelled.length() == 0 ? "" : ";").append(frame);
+                if (frame.startsWith("0x")) {
+                    int offset = Integer.decode(frame) - 0x200;
+                    if (offset >= 0 && offset + 1 < bytes.length) {
+                        labelled.append(' ').append(decoder.decode((short) (bytes[offset] << 8 | bytes[offset + 1] & 0xFF)));
+                    }
+                }
+            }
+            System.out.println(labelled.append(line.substring(count)));
+        }
+    }
+
+    private static boolean isCount(String count) {
+        return !count.isEmpty() && count.chars().allMatch(Character::isDigit);
     }
 
     private static byte[] readFile(String arg) throws IOException {
@@ -21,19 +78,26 @@ public class Disassembler {
         return readAllBytes(Paths.get(absolutePath));
     }
 
-    private static void iterateBytes(byte[] bytes) {
+    private static void iterateBytes(byte[] bytes, long[] counts) {
         long startAdress = 0x200L;
         for (int i = 0; i < bytes.length - 1; i += 2) {
             short opcode = (short) (bytes[i] << 8 | bytes[i + 1] & 0xFF);
             String decoded = decoder.decode(opcode);
             String ascii = Disassembler.ascii.decode(opcode);
-            System.out.println(String.format("%03x: %04x %-16s %s", startAdress+i, opcode, decoded, ascii));
+            if (counts == null) {
+                System.out.println(String.format("%03x: %04x %-16s %s", startAdress+i, opcode, decoded, ascii));
+            } else {
+                long count = counts[(int) (startAdress + i) & 0xFFF];
+                System.out.println(String.format("%03x: %04x %-16s %12s %s", startAdress+i, opcode, decoded, count == 0 ? "" : count, ascii));
+            }
         }
     }
 
     private static void validateInput(String[] args) {
-        if (args.length != 1) {
-            System.out.println("Please provide *.ch8 file");
+        boolean profiled = args.length == 3 && (args[1].equals("--profile") || args[1].equals("--flamegraph"));
+        if (args.length != 1 && !profiled) {
+            System.out.println("Please provide *.ch8 file, optionally followed by --profile and a heat map csv or --flamegraph and collapsed stacks, "
+                    + "or --trace and a trace file");
             System.exit(0);
         }
     }
@@ -0,0 +1,57 @@
+package com.pbeder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import static java.lang.String.format;
+
+// Pretty prints instruction traces written by the emulator's tracer (-Dchip8.trace=true), oldest instruction first.
+// Trace files are big endian: magic int, version short, record count int, then records of
+// pc short, opcode short, I short after the instruction, Vx byte after the instruction.
+public class TraceReader {
+    private static final int MAGIC = 0x43385452; // "C8TR"
+    private static final short VERSION = 1;
+    private static final Decoder decoder = new Decoder();
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.out.println("Please provide trace file");
+            System.exit(0);
+        }
+        print(ByteBuffer.wrap(Files.readAllBytes(Paths.get(args[0]))));
+    }
+
+    static void print(ByteBuffer trace) {
+        if (trace.getInt() != MAGIC || trace.getShort() != VERSION) {
+            System.out.println("Not a version " + VERSION + " trace file");
+            return;
+        }
+        int count = trace.getInt();
+        for (int i = 0; i < count; i++) {
+            short pc = trace.getShort();
+            short opcode = trace.getShort();
+            short index = trace.getShort();
+            byte vx = trace.get();
+            System.out.println(format("%03x: %04x %-16s I=%03x %s", pc, opcode, decoder.decode(opcode), index, changedRegister(opcode, vx)).trim());
+        }
+    }
+
+    // Vx is traced for every instruction, it is only worth showing for the ones that write it
+    private static String changedRegister(short opcode, byte vx) {
+        int x = opcode >>> 8 & 0xF;
+        switch (opcode & 0xF000) {
+            case 0x6000:
+            case 0x7000:
+            case 0x8000:
+            case 0xC000:
+                return format("V%x=%02x", x, vx);
+            case 0xF000:
+                int low = opcode & 0xFF;
+                return low == 0x07 || low == 0x0A || low == 0x65 ? format("V%x=%02x", x, vx) : "";
+            default:
+                return "";
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.pbeder.chip8;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static com.pbeder.chip8.Chip8.RECURSION_DEPTH;
+
+// Attributes executed instructions to the chain of subroutines they run in, one node per distinct call path.
+// Calls and returns are not decoded, they are seen as the stack pointer moving between two instructions:
+// when it went up the previous instruction was a 2nnn and pc is the routine it called, when it went down a 00EE returned.
+class CallTree {
+    private static final int ROOT = 0;
+    private static final int NO_NODE = -1;
+    private static final int INITIAL_NODES = 64;
+    // Per node: the routine it stands for, its caller, a linked list of its callees and the instructions executed in it
+    private int[] addresses = new int[INITIAL_NODES];
+    private int[] parents = new int[INITIAL_NODES];
+    private int[] firstChildren = new int[INITIAL_NODES];
+    private int[] nextSiblings = new int[INITIAL_NODES];
+    private long[] counts = new long[INITIAL_NODES];
+    private int size = 1;
+    // Node running at each stack depth, depths below where profiling started stay at the root
+    private final int[] path = new int[RECURSION_DEPTH + 1];
+    private int depth = NO_NODE;
+
+    CallTree() {
+        parents[ROOT] = NO_NODE;
+        firstChildren[ROOT] = NO_NODE;
+        nextSiblings[ROOT] = NO_NODE;
+    }
+
+    void count(int pc, int stackPointer) {
+        if (depth == NO_NODE) {
+            depth = stackPointer;
+        }
+        while (depth < stackPointer) {
+            path[depth + 1] = child(path[depth], pc & 0xFFF);
+            depth++;
+        }
+        depth = stackPointer;
+        counts[path[depth]]++;
+    }
+
+    private int child(int parent, int address) {
+        for (int node = firstChildren[parent]; node != NO_NODE; node = nextSiblings[node]) {
+            if (addresses[node] == address) {
+                return node;
+            }
+        }
+        if (size == addresses.length) {
+            grow();
+        }
+        int node = size++;
+        addresses[node] = address;
+        parents[node] = parent;
+        firstChildren[node] = NO_NODE;
+        nextSiblings[node] = firstChildren[parent];
+        firstChildren[parent] = node;
+        return node;
+    }
+
+    private void grow() {
+        int capacity = addresses.length * 2;
+        addresses = Arrays.copyOf(addresses, capacity);
+        parents = Arrays.copyOf(parents, capacity);
+        firstChildren = Arrays.copyOf(firstChildren, capacity);
+        nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+        counts = Arrays.copyOf(counts, capacity);
+    }
+
+    // Instructions executed in the routine at the end of the path, e.g. "main;0x2f0;0x31a" calls only count into 0x31a
+    long getSelfCount(String stack) {
+        int node = ROOT;
+        String[] frames = stack.split(";");
+        for (int i = 1; i < frames.length && node != NO_NODE; i++) {
+            int address = Integer.decode(frames[i]);
+            int child = firstChildren[node];
+            while (child != NO_NODE && addresses[child] != address) {
+                child = nextSiblings[child];
+            }
+            node = child;
+        }
+        return node == NO_NODE ? 0 : counts[node];
+    }
+
+    // Collapsed stacks as read by flame graph tools: "main;0x2f0;0x31a 1234", one line per call path that executed anything
+    void writeCollapsedStacks(Appendable out) throws IOException {
+        for (int node = 0; node < size; node++) {
+            if (counts[node] != 0) {
+                out.append(stack(node)).append(' ').append(Long.toString(counts[node])).append('\n');
+            }
+        }
+    }
+
+    private String stack(int node) {
+        if (node == ROOT) {
+            return "main";
+        }
+        return stack(parents[node]) + String.format(";0x%03x", addresses[node]);
+    }
+}
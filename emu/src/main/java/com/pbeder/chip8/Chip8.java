@@ -2,8 +2,11 @@ package com.pbeder.chip8;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
 import java.nio.file.Files;
-import java.util.function.Supplier;
+import java.nio.file.Path;
 
 import static com.pbeder.chip8.Fonts.*;
 import static java.lang.System.arraycopy;
@@ -12,10 +15,28 @@ public class Chip8 {
 
     public static final int SCREEN_WIDTH = 64;
     public static final int SCREEN_HEIGHT = 32;
-    private static final int MEMORY_SIZE = 4096;
+    static final int MEMORY_SIZE = 4096;
     private static final int NUMBER_OF_REGISTERS = 16;
-    private static final int RECURSION_DEPTH = 16;
+    static final int RECURSION_DEPTH = 16;
     private static final int DEFAULT_PROGRAM_LOCATION = 0x200;
+    private static final int STATE_MAGIC = 0x43385353; // "C8SS"
+    private static final short STATE_VERSION = 2;
+    //Save state layout, big endian:
+    //  magic int, version short,
+    //  memory 4096 bytes, V0-VF 16 bytes, I short, pc short, stack pointer byte, stack 16 shorts,
+    //  delay timer short, sound timer short, screen 32 longs, keys short, keys taken by Fx0A short,
+    //  waiting for key byte, key register byte, instruction count long, cycle count long, frame count long,
+    //  random generator saved byte, random seed long, random gamma long
+    public static final int STATE_SIZE = Integer.BYTES + Short.BYTES
+            + MEMORY_SIZE + NUMBER_OF_REGISTERS + Short.BYTES + Short.BYTES + Byte.BYTES + RECURSION_DEPTH * Short.BYTES
+            + Short.BYTES + Short.BYTES + SCREEN_HEIGHT * Long.BYTES + Short.BYTES + Short.BYTES
+            + Byte.BYTES + Byte.BYTES + Long.BYTES + Long.BYTES + Long.BYTES
+            + Byte.BYTES + Long.BYTES + Long.BYTES;
+    // Fields loadState checks before touching anything, relative to the start of the state
+    static final int STATE_PC_OFFSET = Integer.BYTES + Short.BYTES + MEMORY_SIZE + NUMBER_OF_REGISTERS + Short.BYTES;
+    static final int STATE_STACK_POINTER_OFFSET = STATE_PC_OFFSET + Short.BYTES;
+    static final int STATE_KEY_REGISTER_OFFSET = STATE_STACK_POINTER_OFFSET + Byte.BYTES + RECURSION_DEPTH * Short.BYTES
+            + Short.BYTES + Short.BYTES + SCREEN_HEIGHT * Long.BYTES + Short.BYTES + Short.BYTES + Byte.BYTES;
     byte[] memory = new byte[MEMORY_SIZE];
     byte[] registers = new byte[NUMBER_OF_REGISTERS]; // Also called V(0-F)
     short I;
@@ -24,24 +45,101 @@ public class Chip8 {
     short[] stack = new short[RECURSION_DEPTH];
     short delayTimer = -1;
     short soundTimer = -1;
+    private long instructionCount;
+    // Budget handed to executeInstructions, also covers what was skipped as idle loop or spent parked on Fx0A
+    private long cycleCount;
+    private long frameCount;
+    private boolean idle;
+    private boolean muted;
+    private MovieRecorder recorder;
+    private Metrics.Instance metrics;
+    // Reused while JFR does not record it, a new one is only needed once one was committed
+    private FrameEvent frameEvent = new FrameEvent();
+    // While muted run-ahead frames are recorded in the speculative event, the real frame's one waits in realFrameEvent
+    private FrameEvent speculativeFrameEvent = new FrameEvent();
+    private FrameEvent realFrameEvent;
+    private long spritesAtFrameStart;
+    private long clearsAtFrameStart;
+    // Set by Fx0A, no instructions run until a key press lands in keyRegister
+    private boolean waitingForKey;
+    private byte keyRegister;
     private Cpu cpu = new Cpu(this);
-    private Supplier<Byte> randomGenerator;
+    private RandomByte randomGenerator;
     private Screen screen;
     private Keyboard keyboard;
     private Beeper beeper;
 
     public Chip8(Beeper beeper) {
+        this(beeper, SplitMixRandomByte.withRandomSeed());
+    }
+
+    public Chip8(Beeper beeper, long seed) {
+        this(beeper, new SplitMixRandomByte(seed));
+    }
+
+    public Chip8(Beeper beeper, RandomByte randomGenerator) {
         arraycopy(FONTS, 0, memory, 0, NUMBER_OF_FONTS * FONT_HEIGHT);
-        randomGenerator = new RandomByte();
+        this.randomGenerator = randomGenerator;
         screen = new Screen(this);
         keyboard = new Keyboard();
         this.beeper = beeper;
+        frameEvent.begin();
     }
 
-    void setRandomGenerator(Supplier<Byte> randomGenerator) {
+    public void setRandomGenerator(RandomByte randomGenerator) {
         this.randomGenerator = randomGenerator;
     }
 
+    public void setDispatchMode(DispatchMode dispatchMode) {
+        cpu.setDispatchMode(dispatchMode);
+    }
+
+    // Skips delay timer polling loops instead of interpreting them, on by default
+    public void setIdleLoopSkipping(boolean idleLoopSkipping) {
+        cpu.setIdleLoopSkipping(idleLoopSkipping);
+    }
+
+    public DispatchMode getDispatchMode() {
+        return cpu.getDispatchMode();
+    }
+
+    public boolean isIdleLoopSkipping() {
+        return cpu.isIdleLoopSkipping();
+    }
+
+    // Counts every instruction executed from now on, costs a null check per instruction while not profiling
+    public Profiler startProfiling() {
+        Profiler profiler = new Profiler();
+        cpu.setProfiler(profiler);
+        return profiler;
+    }
+
+    public void stopProfiling() {
+        cpu.setProfiler(null);
+    }
+
+    // Instructions credited without being interpreted since the ROM was loaded
+    public long getIdleInstructionsSkipped() {
+        return cpu.getIdleLoop().getSkippedInstructions();
+    }
+
+    // True when the last executeInstructions ended up waiting in an idle loop, nothing changes until the next tick
+    public boolean isIdle() {
+        return idle;
+    }
+
+    public long getInstructionCacheHits() {
+        return cpu.getInstructionCache().getHits();
+    }
+
+    public long getInstructionCacheMisses() {
+        return cpu.getInstructionCache().getMisses();
+    }
+
+    public long getInstructionCacheInvalidations() {
+        return cpu.getInstructionCache().getInvalidations();
+    }
+
     void handleOpcode(short opcode) {
         cpu.handle(opcode);
     }
@@ -51,15 +149,42 @@ public class Chip8 {
     }
 
     byte getRandomByte() {
-        return randomGenerator.get();
+        return randomGenerator.nextByte();
     }
 
     public boolean[][] getScreen() {
         return screen.getScreen();
     }
 
-    void drawSprite(byte x, byte y, byte[] sprite) {
-        screen.drawSprite(x, y, sprite);
+    // Read-only view of packed rows, bit 63 of a row is its leftmost pixel
+    public LongBuffer getScreenRows() {
+        return screen.getRows();
+    }
+
+    public long getScreenRow(int y) {
+        return screen.getRow(y);
+    }
+
+    void copyScreenRows(long[] target) {
+        screen.copyRows(target);
+    }
+
+    // Increases whenever any pixel changes
+    public long getScreenVersion() {
+        return screen.getVersion();
+    }
+
+    // Bit y is set when row y changed since the last takeDirtyRows()
+    public int getDirtyRows() {
+        return screen.getDirtyRows();
+    }
+
+    public int takeDirtyRows() {
+        return screen.takeDirtyRows();
+    }
+
+    void drawSprite(byte x, byte y, int address, int length) {
+        screen.drawSprite(x, y, memory, address, length);
     }
 
     void setPixel(byte x, byte y) {
@@ -68,28 +193,274 @@ public class Chip8 {
 
     public void loadFromFile(File file) {
         try {
-            byte[] bytes = Files.readAllBytes(file.toPath());
-            arraycopy(bytes, 0, memory, DEFAULT_PROGRAM_LOCATION, bytes.length);
-            pc = DEFAULT_PROGRAM_LOCATION;
+            loadFromBytes(Files.readAllBytes(file.toPath()));
         } catch (IOException e) {
             System.out.println("Something wrong with provided file");
             e.printStackTrace();
         }
     }
 
+    public void loadFromBytes(byte[] bytes) {
+        arraycopy(bytes, 0, memory, DEFAULT_PROGRAM_LOCATION, bytes.length);
+        cpu.invalidateAll();
+        cpu.getIdleLoop().reset();
+        pc = DEFAULT_PROGRAM_LOCATION;
+    }
+
+    // Writes STATE_SIZE bytes at the buffer's position, heap, direct and mapped buffers alike
+    public void saveState(ByteBuffer buffer) {
+        if (buffer.remaining() < STATE_SIZE) {
+            throw new IllegalArgumentException("Save state needs " + STATE_SIZE + " bytes, " + buffer.remaining() + " remaining");
+        }
+        ByteOrder order = buffer.order();
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        buffer.putInt(STATE_MAGIC).putShort(STATE_VERSION);
+        buffer.put(memory).put(registers).putShort(I).putShort(pc).put(stackPointer);
+        for (short address : stack) {
+            buffer.putShort(address);
+        }
+        buffer.putShort(delayTimer).putShort(soundTimer);
+        screen.saveRows(buffer);
+        keyboard.save(buffer);
+        buffer.put((byte) (waitingForKey ? 1 : 0)).put(keyRegister);
+        buffer.putLong(instructionCount).putLong(cycleCount).putLong(frameCount);
+        // Only a known generator can be restored, any other one simply keeps going where it is
+        if (randomGenerator instanceof SplitMixRandomByte) {
+            SplitMixRandomByte random = (SplitMixRandomByte) randomGenerator;
+            buffer.put((byte) 1).putLong(random.getSeed()).putLong(random.getGamma());
+        } else {
+            buffer.put((byte) 0).putLong(0).putLong(0);
+        }
+        buffer.order(order);
+    }
+
+    // Reads a state written by saveState from the buffer's position, the buffer is left untouched if it is not one
+    public void loadState(ByteBuffer buffer) {
+        if (buffer.remaining() < STATE_SIZE) {
+            throw new IllegalArgumentException("Save state needs " + STATE_SIZE + " bytes, " + buffer.remaining() + " remaining");
+        }
+        ByteOrder order = buffer.order();
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        int start = buffer.position();
+        if (buffer.getInt(start) != STATE_MAGIC || buffer.getShort(start + Integer.BYTES) != STATE_VERSION) {
+            buffer.order(order);
+            throw new IllegalArgumentException("Not a version " + STATE_VERSION + " save state");
+        }
+        String invalid = validateState(buffer, start);
+        if (invalid != null) {
+            buffer.order(order);
+            throw new IllegalArgumentException("Corrupt save state, " + invalid);
+        }
+        buffer.position(start + Integer.BYTES + Short.BYTES);
+        loadMemory(buffer);
+        buffer.get(registers);
+        I = buffer.getShort();
+        pc = buffer.getShort();
+        stackPointer = buffer.get();
+        for (int i = 0; i < stack.length; i++) {
+            stack[i] = buffer.getShort();
+        }
+        delayTimer = buffer.getShort();
+        soundTimer = buffer.getShort();
+        screen.loadRows(buffer);
+        keyboard.load(buffer);
+        waitingForKey = buffer.get() != 0;
+        keyRegister = buffer.get();
+        instructionCount = buffer.getLong();
+        cycleCount = buffer.getLong();
+        frameCount = buffer.getLong();
+        boolean randomSaved = buffer.get() != 0;
+        long seed = buffer.getLong();
+        long gamma = buffer.getLong();
+        if (randomSaved && randomGenerator instanceof SplitMixRandomByte) {
+            ((SplitMixRandomByte) randomGenerator).restore(seed, gamma);
+        }
+        buffer.order(order);
+        idle = false;
+        // Rewinding may jump into or out of a key wait, the wait of the restored frame starts over
+        if (metrics != null && !muted) {
+            metrics.keyWaitRestored(waitingForKey);
+        }
+    }
+
+    // Values the cpu would index memory, the stack or the registers with, checked up front so a rejected state changes nothing
+    private static String validateState(ByteBuffer buffer, int start) {
+        int pc = buffer.getShort(start + STATE_PC_OFFSET);
+        if (pc < 0 || pc > MEMORY_SIZE - Cpu.INSTRUCTION_SIZE_IN_BYTES) {
+            return "pc " + pc + " outside of memory";
+        }
+        int stackPointer = buffer.get(start + STATE_STACK_POINTER_OFFSET);
+        if (stackPointer < 0 || stackPointer > RECURSION_DEPTH) {
+            return "stack pointer " + stackPointer + " outside of the stack";
+        }
+        int keyRegister = buffer.get(start + STATE_KEY_REGISTER_OFFSET);
+        if (keyRegister < 0 || keyRegister >= NUMBER_OF_REGISTERS) {
+            return "key register " + keyRegister + " is not a register";
+        }
+        return null;
+    }
+
+    // Run-ahead and rewind load a state every frame, mostly with the same code in it, so only bytes that differ invalidate
+    private void loadMemory(ByteBuffer buffer) {
+        final int from = buffer.position();
+        for (int address = 0; address < MEMORY_SIZE; address++) {
+            byte value = buffer.get(from + address);
+            if (memory[address] != value) {
+                memory[address] = value;
+                cpu.invalidate(address, 1);
+            }
+        }
+        buffer.position(from + MEMORY_SIZE);
+    }
+
     //@60 FPS a.k.a 60 Hz
     public void stepTimes(int x) {
-        for (int i = 0; i < x; i++) {
-            handleOpcode(getOpcode());
+        executeInstructions(x);
+        tickTimers();
+    }
+
+    public void executeInstructions(int x) {
+        boolean timed = frameEvent.isEnabled();
+        long start = timed ? System.nanoTime() : 0;
+        long skippedBefore = getIdleInstructionsSkipped();
+        int stepped = 0;
+        try {
+            while (stepped < x) {
+                if (waitingForKey && !resumeOnKeyPress()) {
+                    break;
+                }
+                stepped += cpu.step(x - stepped);
+            }
+        } catch (RuntimeException e) {
+            if (Tracer.ENABLED) {
+                cpu.traceError(e);
+            }
+            if (metrics != null && !muted) {
+                metrics.failed(e);
+            }
+            throw e;
+        }
+        int skipped = (int) (getIdleInstructionsSkipped() - skippedBefore);
+        int executed = stepped - skipped;
+        instructionCount += executed;
+        cycleCount += x;
+        if (metrics != null && !muted) {
+            metrics.executed(executed, skipped);
+        }
+        idle = skipped != 0;
+        if (timed) {
+            frameEvent.instructions += executed;
+            frameEvent.idleInstructions += skipped;
+            frameEvent.emulationTime += System.nanoTime() - start;
+        }
+    }
+
+    // Has to be called at 60 Hz, one call is one frame
+    public void tickTimers() {
+        frameCount++;
+        // Speculative frames of run-ahead are muted, they are thrown away again
+        if (metrics != null && !muted) {
+            metrics.ticked(soundTimer > 0);
         }
         stepDelayTimer();
         stepSoundTimer();
+        endFrameEvent();
+    }
+
+    private void endFrameEvent() {
+        if (frameEvent.shouldCommit()) {
+            frameEvent.frame = frameCount;
+            frameEvent.sprites = screen.getSpritesDrawn() - spritesAtFrameStart;
+            frameEvent.clears = screen.getClears() - clearsAtFrameStart;
+            frameEvent.delayTimer = delayTimer;
+            frameEvent.soundTimer = soundTimer;
+            frameEvent.speculative = muted;
+            frameEvent.commit();
+            frameEvent = new FrameEvent();
+        }
+        beginFrameEvent();
+    }
+
+    private void beginFrameEvent() {
+        // Left over if recording stopped during the frame
+        frameEvent.instructions = 0;
+        frameEvent.idleInstructions = 0;
+        frameEvent.emulationTime = 0;
+        spritesAtFrameStart = screen.getSpritesDrawn();
+        clearsAtFrameStart = screen.getClears();
+        frameEvent.begin();
+    }
+
+    void waitForKey(byte x) {
+        keyRegister = x;
+        waitingForKey = true;
+        if (metrics != null && !muted) {
+            metrics.keyWaitStarted();
+        }
+    }
+
+    private boolean resumeOnKeyPress() {
+        if (!keyboard.hasKeyToTake()) {
+            return false;
+        }
+        registers[keyRegister] = keyboard.takeKey();
+        waitingForKey = false;
+        if (metrics != null && !muted) {
+            metrics.keyWaitEnded();
+        }
+        return true;
+    }
+
+    // Blocked on Fx0A, timers still have to be ticked but nothing else happens until setKey presses a key
+    public boolean isWaitingForKey() {
+        return waitingForKey;
+    }
+
+    // Whether the next tickTimers() changes anything
+    public boolean areTimersRunning() {
+        return delayTimer > 0 || soundTimer > 0;
+    }
+
+    // Timers keep running while muted, the beeper just is not called
+    public void setMuted(boolean muted) {
+        if (muted == this.muted) {
+            return;
+        }
+        this.muted = muted;
+        if (muted) {
+            // Sprites and clears are counted by Screen, which loadState does not rewind, so the real frame keeps its own
+            frameEvent.sprites = screen.getSpritesDrawn() - spritesAtFrameStart;
+            frameEvent.clears = screen.getClears() - clearsAtFrameStart;
+            realFrameEvent = frameEvent;
+            frameEvent = speculativeFrameEvent;
+            beginFrameEvent();
+        } else {
+            speculativeFrameEvent = frameEvent;
+            frameEvent = realFrameEvent;
+            realFrameEvent = null;
+            spritesAtFrameStart = screen.getSpritesDrawn() - frameEvent.sprites;
+            clearsAtFrameStart = screen.getClears() - frameEvent.clears;
+        }
+    }
+
+    public long getInstructionCount() {
+        return instructionCount;
+    }
+
+    public long getCycleCount() {
+        return cycleCount;
+    }
+
+    public long getFrameCount() {
+        return frameCount;
     }
 
     private void stepSoundTimer() {
         if (soundTimer > 0) {
             soundTimer--;
-            beeper.beep();
+            if (!muted) {
+                beeper.beep();
+            }
         }
     }
 
@@ -107,20 +478,49 @@ public class Chip8 {
         return keyboard.isKeyPressed(x);
     }
 
-    byte getFirstKeyPressed() {
-        return keyboard.getFirstKeyPressed();
+    // A held key is only returned once, see Keyboard
+    byte takeKey() {
+        return keyboard.takeKey();
     }
 
-    boolean isAnyKeyPressed() {
-        return keyboard.isAnyKeyPressed();
+    boolean hasKeyToTake() {
+        return keyboard.hasKeyToTake();
     }
 
+    // Only from the thread running this Chip8, see Scheduler.postKey for other threads
     public void setKey(byte key, boolean isPressed) {
         keyboard.setKey(key, isPressed);
+        if (recorder != null) {
+            recorder.keyChanged(key, isPressed);
+        }
+    }
+
+    // Writes the last traced instructions, only available with -Dchip8.trace=true
+    public void dumpTrace(Path path) throws IOException {
+        if (!Tracer.ENABLED) {
+            throw new IllegalStateException("Tracing is off, run with -Dchip8.trace=true");
+        }
+        cpu.getTracer().dump(path);
+    }
+
+    void setRecorder(MovieRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    void setMetrics(Metrics.Instance metrics) {
+        this.metrics = metrics;
+    }
+
+    Metrics.Instance getMetrics() {
+        return metrics;
+    }
+
+    void memoryWritten(int address, int length) {
+        cpu.invalidate(address, length);
     }
 
-    private short getOpcode() {
-        return (short) (memory[pc] << 8 | memory[pc + 1] & 0xFF);
+    short fetch(int address) {
+        return (short) (memory[address] << 8 | memory[address + 1] & 0xFF);
     }
 
 }
@@ -7,137 +7,520 @@ import static java.lang.System.arraycopy;
 class Cpu {
 
     static final int INSTRUCTION_SIZE_IN_BYTES = 2;
+    private static final int NUMBER_OF_OPCODES = 0x10000;
+    private static final Instruction[] INSTRUCTIONS = new Instruction[NUMBER_OF_OPCODES];
+    // Handler ids, dense so that execute compiles to a single jump table
+    static final int OP_00E0 = 0;
+    static final int OP_00EE = 1;
+    static final int OP_0nnn = 2;
+    static final int OP_1nnn = 3;
+    static final int OP_2nnn = 4;
+    static final int OP_3xkk = 5;
+    static final int OP_4xkk = 6;
+    static final int OP_5xy0 = 7;
+    static final int OP_6xkk = 8;
+    static final int OP_7xkk = 9;
+    static final int OP_8xy0 = 10;
+    static final int OP_8xy1 = 11;
+    static final int OP_8xy2 = 12;
+    static final int OP_8xy3 = 13;
+    static final int OP_8xy4 = 14;
+    static final int OP_8xy5 = 15;
+    static final int OP_8xy6 = 16;
+    static final int OP_8xy7 = 17;
+    static final int OP_8xyE = 18;
+    static final int OP_9xy0 = 19;
+    static final int OP_Annn = 20;
+    static final int OP_Bnnn = 21;
+    static final int OP_Cxkk = 22;
+    static final int OP_Dxyn = 23;
+    static final int OP_Ex9E = 24;
+    static final int OP_ExA1 = 25;
+    static final int OP_Fx07 = 26;
+    static final int OP_Fx0A = 27;
+    static final int OP_Fx15 = 28;
+    static final int OP_Fx18 = 29;
+    static final int OP_Fx1E = 30;
+    static final int OP_Fx29 = 31;
+    static final int OP_Fx33 = 32;
+    static final int OP_Fx55 = 33;
+    static final int OP_Fx65 = 34;
+    static final int OP_UNKNOWN = 35;
     private final Chip8 chip8;
+    private final InstructionCache instructionCache;
+    private final IdleLoop idleLoop;
+    private final Tracer tracer = Tracer.ENABLED ? new Tracer() : null;
+    private Profiler profiler;
+    private DispatchMode dispatchMode = DispatchMode.SWITCH;
+    private boolean idleLoopSkipping = true;
+    // Set by a short backward jump, the loop it closes gets probed once the current step is done
+    private boolean loopClosed;
+
+    static {
+        for (int opcode = 0; opcode < NUMBER_OF_OPCODES; opcode++) {
+            INSTRUCTIONS[opcode] = new Instruction((short) opcode, handlerFor((short) opcode));
+        }
+    }
 
     Cpu(Chip8 chip8) {
         this.chip8 = chip8;
+        this.instructionCache = new InstructionCache(chip8);
+        this.idleLoop = new IdleLoop(chip8);
+    }
+
+    void setDispatchMode(DispatchMode dispatchMode) {
+        this.dispatchMode = dispatchMode;
+    }
+
+    void setProfiler(Profiler profiler) {
+        this.profiler = profiler;
+    }
+
+    DispatchMode getDispatchMode() {
+        return dispatchMode;
+    }
+
+    boolean isIdleLoopSkipping() {
+        return idleLoopSkipping;
+    }
+
+    void setIdleLoopSkipping(boolean idleLoopSkipping) {
+        this.idleLoopSkipping = idleLoopSkipping;
+    }
+
+    static Instruction decode(short opcode) {
+        return INSTRUCTIONS[opcode & 0xFFFF];
+    }
+
+    // Executes at most budget instructions starting at pc, returns how many were executed or skipped
+    int step(int budget) {
+        interpret();
+        int executed = 1;
+        if (loopClosed) {
+            loopClosed = false;
+            executed += idleLoop.fastForward(budget - executed);
+        }
+        return executed;
+    }
+
+    private void interpret() {
+        final Instruction instruction = instructionCache.get(chip8.pc);
+        if (dispatchMode == DispatchMode.SWITCH) {
+            dispatch(instruction);
+        } else {
+            execute(instruction);
+        }
     }
 
     void handle(short opcode) {
+        if (dispatchMode == DispatchMode.SWITCH) {
+            dispatch(decode(opcode));
+        } else {
+            execute(decode(opcode));
+        }
+    }
+
+    void invalidate(int address, int length) {
+        instructionCache.invalidate(address, length);
+    }
+
+    void invalidateAll() {
+        instructionCache.invalidateAll();
+    }
+
+    InstructionCache getInstructionCache() {
+        return instructionCache;
+    }
+
+    // The failing instruction never got to the end of execute, it is recorded here with whatever state it left
+    void traceError(RuntimeException error) {
+        short pc = (short) (chip8.pc - INSTRUCTION_SIZE_IN_BYTES);
+        try {
+            short opcode = chip8.fetch(pc);
+            tracer.record(pc, opcode, chip8.I, chip8.registers[getX(opcode)]);
+        } catch (RuntimeException e) {
+            // A pc outside of memory may be the very error being traced, it must not replace it, the dump goes without it
+            error.addSuppressed(e);
+        }
+        tracer.dumpOnError(error);
+    }
+
+    // Null unless tracing is enabled
+    Tracer getTracer() {
+        return tracer;
+    }
+
+    IdleLoop getIdleLoop() {
+        return idleLoop;
+    }
+
+    void execute(Instruction instruction) {
+        final short pc = chip8.pc;
+        if (profiler != null) {
+            profiler.count(pc, instruction.handler, chip8.stackPointer);
+        }
+        chip8.pc += INSTRUCTION_SIZE_IN_BYTES;
+        switch (instruction.handler) {
+            case OP_00E0:
+                _0x00E0();
+                break;
+            case OP_00EE:
+                _0x00EE();
+                break;
+            case OP_0nnn:
+                _0nnn();
+                break;
+            case OP_1nnn:
+                _0x1nnn(instruction.nnn);
+                break;
+            case OP_2nnn:
+                _0x2nnn(instruction.nnn);
+                break;
+            case OP_3xkk:
+                _0x3xkk(instruction.x, instruction.kk);
+                break;
+            case OP_4xkk:
+                _0x4xkk(instruction.x, instruction.kk);
+                break;
+            case OP_5xy0:
+                _0x5xy0(instruction.x, instruction.y);
+                break;
+            case OP_6xkk:
+                _0x6xkk(instruction.x, instruction.kk);
+                break;
+            case OP_7xkk:
+                _0x7xkk(instruction.x, instruction.kk);
+                break;
+            case OP_8xy0:
+                _0x8xy0(instruction.x, instruction.y);
+                break;
+            case OP_8xy1:
+                _0x8xy1(instruction.x, instruction.y);
+                break;
+            case OP_8xy2:
+                _0x8xy2(instruction.x, instruction.y);
+                break;
+            case OP_8xy3:
+                _0x8xy3(instruction.x, instruction.y);
+                break;
+            case OP_8xy4:
+                _0x8xy4(instruction.x, instruction.y);
+                break;
+            case OP_8xy5:
+                _0x8xy5(instruction.x, instruction.y);
+                break;
+            case OP_8xy6:
+                _0x8xy6(instruction.x);
+                break;
+            case OP_8xy7:
+                _0x8xy7(instruction.x, instruction.y);
+                break;
+            case OP_8xyE:
+                _0x8xyE(instruction.x);
+                break;
+            case OP_9xy0:
+                _0x9xy0(instruction.x, instruction.y);
+                break;
+            case OP_Annn:
+                _0xAnnn(instruction.nnn);
+                break;
+            case OP_Bnnn:
+                _0xBnnn(instruction.nnn);
+                break;
+            case OP_Cxkk:
+                _0xCxkk(instruction.x, instruction.kk);
+                break;
+            case OP_Dxyn:
+                _0xDxyn(instruction.x, instruction.y, instruction.n);
+                break;
+            case OP_Ex9E:
+                _0xEx9E(instruction.x);
+                break;
+            case OP_ExA1:
+                _0xExA1(instruction.x);
+                break;
+            case OP_Fx07:
+                _0xFx07(instruction.x);
+                break;
+            case OP_Fx0A:
+                _0xFx0A(instruction.x);
+                break;
+            case OP_Fx15:
+                _0xFx15(instruction.x);
+                break;
+            case OP_Fx18:
+                _0xFx18(instruction.x);
+                break;
+            case OP_Fx1E:
+                _0xFx1E(instruction.x);
+                break;
+            case OP_Fx29:
+                _0xFx29(instruction.x);
+                break;
+            case OP_Fx33:
+                _0xFx33(instruction.x);
+                break;
+            case OP_Fx55:
+                _0xFx55(instruction.x);
+                break;
+            case OP_Fx65:
+                _0xFx65(instruction.x);
+                break;
+            default:
+                // Unknown opcodes are skipped, same as the switch interpreter does
+                break;
+        }
+        if (Tracer.ENABLED) {
+            tracer.record(pc, instruction.opcode, chip8.I, chip8.registers[instruction.x]);
+        }
+    }
+
+    private static int handlerFor(short opcode) {
+        switch (opcode & 0xF000) {
+            case 0x0000:
+                return handlerFor_0(opcode);
+            case 0x1000:
+                return OP_1nnn;
+            case 0x2000:
+                return OP_2nnn;
+            case 0x3000:
+                return OP_3xkk;
+            case 0x4000:
+                return OP_4xkk;
+            case 0x5000:
+                return OP_5xy0;
+            case 0x6000:
+                return OP_6xkk;
+            case 0x7000:
+                return OP_7xkk;
+            case 0x8000:
+                return handlerFor_8(opcode);
+            case 0x9000:
+                return OP_9xy0;
+            case 0xA000:
+                return OP_Annn;
+            case 0xB000:
+                return OP_Bnnn;
+            case 0xC000:
+                return OP_Cxkk;
+            case 0xD000:
+                return OP_Dxyn;
+            case 0xE000:
+                return handlerFor_E(opcode);
+            default:
+                return handlerFor_F(opcode);
+        }
+    }
+
+    private static int handlerFor_F(short opcode) {
+        switch (opcode & 0x00FF) {
+            case 0x0007:
+                return OP_Fx07;
+            case 0x000A:
+                return OP_Fx0A;
+            case 0x0015:
+                return OP_Fx15;
+            case 0x0018:
+                return OP_Fx18;
+            case 0x001E:
+                return OP_Fx1E;
+            case 0x0029:
+                return OP_Fx29;
+            case 0x0033:
+                return OP_Fx33;
+            case 0x0055:
+                return OP_Fx55;
+            case 0x0065:
+                return OP_Fx65;
+            default:
+                return OP_UNKNOWN;
+        }
+    }
+
+    private static int handlerFor_E(short opcode) {
+        switch (opcode & 0x00FF) {
+            case 0x009E:
+                return OP_Ex9E;
+            case 0x00A1:
+                return OP_ExA1;
+            default:
+                return OP_UNKNOWN;
+        }
+    }
+
+    private static int handlerFor_8(short opcode) {
+        switch (opcode & 0x000F) {
+            case 0x0000:
+                return OP_8xy0;
+            case 0x0001:
+                return OP_8xy1;
+            case 0x0002:
+                return OP_8xy2;
+            case 0x0003:
+                return OP_8xy3;
+            case 0x0004:
+                return OP_8xy4;
+            case 0x0005:
+                return OP_8xy5;
+            case 0x0006:
+                return OP_8xy6;
+            case 0x0007:
+                return OP_8xy7;
+            case 0x000E:
+                return OP_8xyE;
+            default:
+                return OP_UNKNOWN;
+        }
+    }
+
+    private static int handlerFor_0(short opcode) {
+        switch (opcode) {
+            case 0x00E0:
+                return OP_00E0;
+            case 0x00EE:
+                return OP_00EE;
+            default:
+                return OP_0nnn;
+        }
+    }
+
+    private void dispatch(Instruction instruction) {
+        final short pc = chip8.pc;
+        final short opcode = instruction.opcode;
+        if (profiler != null) {
+            profiler.count(pc, instruction.handler, chip8.stackPointer);
+        }
         chip8.pc += INSTRUCTION_SIZE_IN_BYTES;
         switch (opcode & 0xF000) {
             case 0x0000:
                 _0(opcode);
                 break;
             case 0x1000:
-                _0x1nnn(opcode);
+                _0x1nnn(instruction.nnn);
                 break;
             case 0x2000:
-                _0x2nnn(opcode);
+                _0x2nnn(instruction.nnn);
                 break;
             case 0x3000:
-                _0x3xkk(opcode);
+                _0x3xkk(instruction.x, instruction.kk);
                 break;
             case 0x4000:
-                _0x4xkk(opcode);
+                _0x4xkk(instruction.x, instruction.kk);
                 break;
             case 0x5000:
-                _0x5xy0(opcode);
+                _0x5xy0(instruction.x, instruction.y);
                 break;
             case 0x6000:
-                _0x6xkk(opcode);
+                _0x6xkk(instruction.x, instruction.kk);
                 break;
             case 0x7000:
-                _0x7xkk(opcode);
+                _0x7xkk(instruction.x, instruction.kk);
                 break;
             case 0x8000:
-                _8(opcode);
+                _8(instruction);
                 break;
             case 0x9000:
-                _0x9xy0(opcode);
+                _0x9xy0(instruction.x, instruction.y);
                 break;
             case 0xA000:
-                _0xAnnn(opcode);
+                _0xAnnn(instruction.nnn);
                 break;
             case 0xB000:
-                _0xBnnn(opcode);
+                _0xBnnn(instruction.nnn);
                 break;
             case 0xC000:
-                _0xCxkk(opcode);
+                _0xCxkk(instruction.x, instruction.kk);
                 break;
             case 0xD000:
-                _0xDxyn(opcode);
+                _0xDxyn(instruction.x, instruction.y, instruction.n);
                 break;
             case 0xE000:
-                _E(opcode);
+                _E(instruction);
                 break;
             case 0xF000:
-                _F(opcode);
+                _F(instruction);
                 break;
         }
+        if (Tracer.ENABLED) {
+            tracer.record(pc, opcode, chip8.I, chip8.registers[instruction.x]);
+        }
     }
 
-    private void _F(short opcode) {
-        switch (opcode & 0x00FF) {
+    private void _F(Instruction instruction) {
+        final byte x = instruction.x;
+        switch (instruction.opcode & 0x00FF) {
             case 0x0007:
-                _0xFx07(opcode);
+                _0xFx07(x);
                 break;
             case 0x000A:
-                _0xFx0A(opcode);
+                _0xFx0A(x);
                 break;
             case 0x0015:
-                _0xFx15(opcode);
+                _0xFx15(x);
                 break;
             case 0x0018:
-                _0xFx18(opcode);
+                _0xFx18(x);
                 break;
             case 0x001E:
-                _0xFx1E(opcode);
+                _0xFx1E(x);
                 break;
             case 0x0029:
-                _0xFx29(opcode);
+                _0xFx29(x);
                 break;
             case 0x0033:
-                _0xFx33(opcode);
+                _0xFx33(x);
                 break;
             case 0x0055:
-                _0xFx55(opcode);
+                _0xFx55(x);
                 break;
             case 0x0065:
-                _0xFx65(opcode);
+                _0xFx65(x);
                 break;
         }
     }
 
-    private void _E(short opcode) {
-        switch (opcode & 0x00FF) {
+    private void _E(Instruction instruction) {
+        final byte x = instruction.x;
+        switch (instruction.opcode & 0x00FF) {
             case 0x009E:
-                _0xEx9E(opcode);
+                _0xEx9E(x);
                 break;
             case 0x00A1:
-                _0xExA1(opcode);
+                _0xExA1(x);
                 break;
         }
     }
 
-    private void _8(short opcode) {
-        switch (opcode & 0x000F) {
+    private void _8(Instruction instruction) {
+        final byte x = instruction.x;
+        final byte y = instruction.y;
+        switch (instruction.opcode & 0x000F) {
             case 0x0000:
-                _0x8xy0(opcode);
+                _0x8xy0(x, y);
                 break;
             case 0x0001:
-                _0x8xy1(opcode);
+                _0x8xy1(x, y);
                 break;
             case 0x0002:
-                _0x8xy2(opcode);
+                _0x8xy2(x, y);
                 break;
             case 0x0003:
-                _0x8xy3(opcode);
+                _0x8xy3(x, y);
                 break;
             case 0x0004:
-                _0x8xy4(opcode);
+                _0x8xy4(x, y);
                 break;
             case 0x0005:
-                _0x8xy5(opcode);
+                _0x8xy5(x, y);
                 break;
             case 0x0006:
-                _0x8xy6(opcode);
+                _0x8xy6(x);
                 break;
             case 0x0007:
-                _0x8xy7(opcode);
+                _0x8xy7(x, y);
                 break;
             case 0x000E:
-                _0x8xyE(opcode);
+                _0x8xyE(x);
                 break;
         }
     }
@@ -160,16 +543,11 @@ class Cpu {
         Display n-byte sprite starting at memory location I at (Vx, Vy), set VF = collision.
         The interpreter reads n bytes from memory, starting at the address stored in I. These bytes are then displayed as sprites on screen at coordinates (Vx, Vy). Sprites are XORed onto the existing screen. If this causes any pixels to be erased, VF is set to 1, otherwise it is set to 0. If the sprite is positioned so part of it is outside the coordinates of the display, it wraps around to the opposite side of the screen. See instruction 8xy3 for more information on XOR, and section 2.4, Display, for more information on the Chip-8 screen and sprites.
     */
-    private void _0xDxyn(short opcode) {
+    private void _0xDxyn(byte x, byte y, byte n) {
         chip8.setCarry(false);
-        byte x = getX(opcode);
-        byte y = getY(opcode);
         byte xx = chip8.registers[x];
         byte yy = chip8.registers[y];
-        byte n = getN(opcode);
-        byte[] sprite = new byte[n];
-        System.arraycopy(chip8.memory, chip8.I, sprite, 0, n);
-        chip8.drawSprite(xx, yy, sprite);
+        chip8.drawSprite(xx, yy, chip8.I, n);
     }
 
     /*
@@ -177,9 +555,7 @@ class Cpu {
         Set Vx = random byte AND kk.
         The interpreter generates a random number from 0 to 255, which is then ANDed with the value kk. The results are stored in Vx. See instruction 8xy2 for more information on AND.
     */
-    private void _0xCxkk(short opcode) {
-        byte x = getX(opcode);
-        short kk = getKK(opcode);
+    private void _0xCxkk(byte x, byte kk) {
         final byte randomByte = chip8.getRandomByte();
         chip8.registers[x] = (byte) (randomByte & kk);
     }
@@ -189,8 +565,7 @@ class Cpu {
         Jump to location nnn + V0.
         The program counter is set to nnn plus the value of V0.
     */
-    private void _0xBnnn(short opcode) {
-        short nnn = getNNN(opcode);
+    private void _0xBnnn(short nnn) {
         chip8.pc = (short) (Short.toUnsignedInt(nnn) + toUnsignedInt(chip8.registers[0]));
     }
 
@@ -199,8 +574,8 @@ class Cpu {
         Set I = nnn.
         The value of register I is set to nnn.
     */
-    private void _0xAnnn(short opcode) {
-        chip8.I = getNNN(opcode);
+    private void _0xAnnn(short nnn) {
+        chip8.I = nnn;
     }
 
 
@@ -209,9 +584,7 @@ class Cpu {
         Skip next instruction if Vx != Vy.
         The values of Vx and Vy are compared, and if they are not equal, the program counter is increased by 2.
     */
-    private void _0x9xy0(short opcode) {
-        byte x = getX(opcode);
-        byte y = getY(opcode);
+    private void _0x9xy0(byte x, byte y) {
         if (chip8.registers[x] != chip8.registers[y]) {
             chip8.pc += INSTRUCTION_SIZE_IN_BYTES;
         }
@@ -222,8 +595,7 @@ class Cpu {
         Set Vx = Vx SHL 1.
         If the most-significant bit of Vx is 1, then VF is set to 1, otherwise to 0. Then Vx is multiplied by 2.
     */
-    private void _0x8xyE(short opcode) {
-        byte x = getX(opcode);
+    private void _0x8xyE(byte x) {
         final int msb = 0x80 & chip8.registers[x];
         chip8.setCarry(msb >>> 7 == 1);
         chip8.registers[x] = (byte) (chip8.registers[x] << 1);
@@ -234,9 +606,7 @@ class Cpu {
         Set Vx = Vy - Vx, set VF = NOT borrow.
         If Vy >= Vx, then VF is set to 1, otherwise 0. Then Vx is subtracted from Vy, and the results stored in Vx.
     */
-    private void _0x8xy7(short opcode) {
-        byte x = getX(opcode);
-        byte y = getY(opcode);
+    private void _0x8xy7(byte x, byte y) {
         chip8.setCarry(toUnsignedInt(chip8.registers[y]) >= toUnsignedInt(chip8.registers[x]));
         chip8.registers[x] = (byte) (toUnsignedInt(chip8.registers[y]) - toUnsignedInt(chip8.registers[x]));
     }
@@ -246,8 +616,7 @@ class Cpu {
         Set Vx = Vx SHR 1.
         If the least-significant bit of Vx is 1, then VF is set to 1, otherwise 0. Then Vx is divided by 2.
     */
-    private void _0x8xy6(short opcode) {
-        byte x = getX(opcode);
+    private void _0x8xy6(byte x) {
         final int lsb = 0x1 & chip8.registers[x];
         chip8.setCarry(lsb == 1);
         chip8.registers[x] = (byte) (toUnsignedInt(chip8.registers[x]) >>> 1);
@@ -258,9 +627,7 @@ class Cpu {
         Set Vx = Vx - Vy, set VF = NOT borrow.
         If Vx >= Vy, then VF is set to 1, otherwise 0. Then Vy is subtracted from Vx, and the results stored in Vx.
     */
-    private void _0x8xy5(short opcode) {
-        byte x = getX(opcode);
-        byte y = getY(opcode);
+    private void _0x8xy5(byte x, byte y) {
         chip8.setCarry(toUnsignedInt(chip8.registers[x]) >= toUnsignedInt(chip8.registers[y]));
         chip8.registers[x] = (byte) (toUnsignedInt(chip8.registers[x]) - toUnsignedInt(chip8.registers[y]));
     }
@@ -271,9 +638,7 @@ class Cpu {
         The values of Vx and Vy are added together. If the result is greater than 8 bits
         (i.e., > 255,) VF is set to 1, otherwise 0. Only the lowest 8 bits of the result are kept, and stored in Vx.
     */
-    private void _0x8xy4(short opcode) {
-        byte x = getX(opcode);
-        byte y = getY(opcode);
+    private void _0x8xy4(byte x, byte y) {
         int sum = toUnsignedInt(chip8.registers[x]) + toUnsignedInt(chip8.registers[y]);
         chip8.setCarry(sum > 255);
         chip8.registers[x] = (byte) sum;
@@ -284,9 +649,7 @@ class Cpu {
         Set Vx = Vx XOR Vy.
         Performs a bitwise exclusive OR on the values of Vx and Vy, then stores the result in Vx. An exclusive OR compares the corresponding bits from two values, and if the bits are not both the same, then the corresponding bit in the result is set to 1. Otherwise, it is 0.
     */
-    private void _0x8xy3(short opcode) {
-        byte x = getX(opcode);
-        byte y = getY(opcode);
+    private void _0x8xy3(byte x, byte y) {
         chip8.registers[x] = (byte) (chip8.registers[x] ^ chip8.registers[y]);
     }
 
@@ -295,9 +658,7 @@ class Cpu {
         Set Vx = Vx AND Vy.
         Performs a bitwise AND on the values of Vx and Vy, then stores the result in Vx. A bitwise AND compares the corresponding bits from two values, and if both bits are 1, then the same bit in the result is also 1. Otherwise, it is 0.
     */
-    private void _0x8xy2(short opcode) {
-        byte x = getX(opcode);
-        byte y = getY(opcode);
+    private void _0x8xy2(byte x, byte y) {
         chip8.registers[x] = (byte) (chip8.registers[x] & chip8.registers[y]);
     }
 
@@ -306,9 +667,7 @@ class Cpu {
         Set Vx = Vx OR Vy.
         Performs a bitwise OR on the values of Vx and Vy, then stores the result in Vx. A bitwise OR compares the corresponding bits from two values, and if either bit is 1, then the same bit in the result is also 1. Otherwise, it is 0.
     */
-    private void _0x8xy1(short opcode) {
-        byte x = getX(opcode);
-        byte y = getY(opcode);
+    private void _0x8xy1(byte x, byte y) {
         chip8.registers[x] = (byte) (chip8.registers[x] | chip8.registers[y]);
     }
 
@@ -317,9 +676,7 @@ class Cpu {
         Set Vx = Vy.
         Stores the value of register Vy in register Vx.
     */
-    private void _0x8xy0(short opcode) {
-        byte x = getX(opcode);
-        byte y = getY(opcode);
+    private void _0x8xy0(byte x, byte y) {
         chip8.registers[x] = chip8.registers[y];
     }
 
@@ -328,9 +685,8 @@ class Cpu {
         Set Vx = Vx + kk.
         Adds the value kk to the value of register Vx, then stores the result in Vx.
     */
-    private void _0x7xkk(short opcode) {
-        byte x = getX(opcode);
-        chip8.registers[x] = (byte) (toUnsignedInt(chip8.registers[x]) + toUnsignedInt(getKK(opcode)));
+    private void _0x7xkk(byte x, byte kk) {
+        chip8.registers[x] = (byte) (toUnsignedInt(chip8.registers[x]) + toUnsignedInt(kk));
     }
 
     /*
@@ -338,10 +694,8 @@ class Cpu {
         Set Vx = kk.
         The interpreter puts the value kk into register Vx.
     */
-    private void _0x6xkk(short opcode) {
-        byte x = getX(opcode);
-        short kk = getKK(opcode);
-        chip8.registers[x] = (byte) kk;
+    private void _0x6xkk(byte x, byte kk) {
+        chip8.registers[x] = kk;
     }
 
     /*
@@ -349,9 +703,7 @@ class Cpu {
         Skip next instruction if Vx = Vy.
         The interpreter compares register Vx to register Vy, and if they are equal, increments the program counter by 2.
     */
-    private void _0x5xy0(short opcode) {
-        byte x = getX(opcode);
-        byte y = getY(opcode);
+    private void _0x5xy0(byte x, byte y) {
         if (chip8.registers[x] == chip8.registers[y]) {
             chip8.pc += INSTRUCTION_SIZE_IN_BYTES;
         }
@@ -362,9 +714,7 @@ class Cpu {
         Skip next instruction if Vx != kk.
         The interpreter compares register Vx to kk, and if they are not equal, increments the program counter by 2.
     */
-    private void _0x4xkk(short opcode) {
-        byte x = getX(opcode);
-        byte kk = getKK(opcode);
+    private void _0x4xkk(byte x, byte kk) {
         if (chip8.registers[x] != kk) {
             chip8.pc += INSTRUCTION_SIZE_IN_BYTES;
         }
@@ -375,9 +725,7 @@ class Cpu {
         Skip next instruction if Vx = kk.
         The interpreter compares register Vx to kk, and if they are equal, increments the program counter by 2.
     */
-    private void _0x3xkk(short opcode) {
-        byte x = getX(opcode);
-        short kk = getKK(opcode);
+    private void _0x3xkk(byte x, byte kk) {
         if (chip8.registers[x] == kk) {
             chip8.pc += INSTRUCTION_SIZE_IN_BYTES;
         }
@@ -388,9 +736,9 @@ class Cpu {
         Call subroutine at nnn.
         The interpreter increments the stack pointer, then puts the current PC on the top of the stack. The PC is then set to nnn.
     */
-    private void _0x2nnn(short opcode) {
+    private void _0x2nnn(short nnn) {
         chip8.stack[chip8.stackPointer++] = chip8.pc;
-        chip8.pc = getNNN(opcode);
+        chip8.pc = nnn;
     }
 
     /*
@@ -398,8 +746,12 @@ class Cpu {
         Jump to location nnn.
         The interpreter sets the program counter to nnn.
     */
-    private void _0x1nnn(short opcode) {
-        chip8.pc = getNNN(opcode);
+    private void _0x1nnn(short nnn) {
+        int jump = chip8.pc - INSTRUCTION_SIZE_IN_BYTES;
+        chip8.pc = nnn;
+        if (idleLoopSkipping && nnn <= jump && jump - nnn < IdleLoop.MAX_LOOP_SIZE_IN_BYTES) {
+            loopClosed = true;
+        }
     }
 
     /*
@@ -433,9 +785,9 @@ class Cpu {
         Skip next instruction if key with the value of Vx is pressed.
         Checks the keyboard, and if the key corresponding to the value of Vx is currently in the down position, PC is increased by 2.
     */
-    private void _0xEx9E(short opcode) {
-        byte x = chip8.registers[getX(opcode)];
-        if (chip8.isKeyPressed(x)) {
+    private void _0xEx9E(byte x) {
+        byte key = chip8.registers[x];
+        if (chip8.isKeyPressed(key)) {
             chip8.pc += INSTRUCTION_SIZE_IN_BYTES;
         }
     }
@@ -445,9 +797,9 @@ class Cpu {
         Skip next instruction if key with the value of Vx is not pressed.
         Checks the keyboard, and if the key corresponding to the value of Vx is currently in the up position, PC is increased by 2.
      */
-    private void _0xExA1(short opcode) {
-        byte x = chip8.registers[getX(opcode)];
-        if (!chip8.isKeyPressed(x)) {
+    private void _0xExA1(byte x) {
+        byte key = chip8.registers[x];
+        if (!chip8.isKeyPressed(key)) {
             chip8.pc += INSTRUCTION_SIZE_IN_BYTES;
         }
     }
@@ -457,10 +809,10 @@ class Cpu {
         Set Vx = delay timer value.
         The value of DT is placed into Vx.
     */
-    private void _0xFx07(short opcode) {
+    private void _0xFx07(byte x) {
         short delayTimer = chip8.delayTimer;
 //        System.out.println("setting Vx with delay timer: " + delayTimer);
-        chip8.registers[getX(opcode)] = (byte) delayTimer;
+        chip8.registers[x] = (byte) delayTimer;
     }
 
     /*
@@ -468,13 +820,12 @@ class Cpu {
         Wait for a key press, store the value of the key in Vx.
         All execution stops until a key is pressed, then the value of that key is stored in Vx.
     */
-    private void _0xFx0A(short opcode) {
-        if (!chip8.isAnyKeyPressed()) {
-            //Repeat same opCode in next Cycle
-            chip8.pc -= INSTRUCTION_SIZE_IN_BYTES;
+    private void _0xFx0A(byte x) {
+        if (!chip8.hasKeyToTake()) {
+            //Park until a key is pressed instead of repeating the same opCode every cycle
+            chip8.waitForKey(x);
         } else {
-            byte key = chip8.getFirstKeyPressed();
-            byte x = getX(opcode);
+            byte key = chip8.takeKey();
             chip8.registers[x] = key;
         }
     }
@@ -484,8 +835,8 @@ class Cpu {
         Set delay timer = Vx.
         DT is set equal to the value of Vx.
     */
-    private void _0xFx15(short opcode) {
-        chip8.delayTimer = (short) toUnsignedInt(chip8.registers[getX(opcode)]);
+    private void _0xFx15(byte x) {
+        chip8.delayTimer = (short) toUnsignedInt(chip8.registers[x]);
     }
 
     /*
@@ -493,8 +844,8 @@ class Cpu {
         Set sound timer = Vx.
         ST is set equal to the value of Vx.
     */
-    private void _0xFx18(short opcode) {
-        chip8.soundTimer = (short) toUnsignedInt(chip8.registers[getX(opcode)]);
+    private void _0xFx18(byte x) {
+        chip8.soundTimer = (short) toUnsignedInt(chip8.registers[x]);
     }
 
     /*
@@ -502,8 +853,7 @@ class Cpu {
         Set I = I + Vx.
         The values of I and Vx are added, and the results are stored in I.
     */
-    private void _0xFx1E(short opcode) {
-        byte x = getX(opcode);
+    private void _0xFx1E(byte x) {
         chip8.I = (short) (toUnsignedInt(chip8.registers[x]) + Short.toUnsignedInt(chip8.I));
     }
 
@@ -512,8 +862,7 @@ class Cpu {
         Set I = location of sprite for digit Vx.
         The value of I is set to the location for the hexadecimal sprite corresponding to the value of Vx. See section 2.4, Display, for more information on the Chip-8 hexadecimal font.
     */
-    private void _0xFx29(short opcode) {
-        byte x = getX(opcode);
+    private void _0xFx29(byte x) {
         byte vx = chip8.registers[x];
         chip8.I = (short) (vx * FONT_HEIGHT);
     }
@@ -523,12 +872,12 @@ class Cpu {
         Store BCD representation of Vx in memory locations I, I+1, and I+2.
         The interpreter takes the decimal value of Vx, and places the hundreds digit in memory at location in I, the tens digit at location I+1, and the ones digit at location I+2.
     */
-    private void _0xFx33(short opcode) {
-        byte x = getX(opcode);
+    private void _0xFx33(byte x) {
         byte bcd = chip8.registers[x];
         chip8.memory[chip8.I] = (byte) (toUnsignedInt(bcd) / 100);
         chip8.memory[chip8.I + 1] = (byte) (toUnsignedInt(bcd) % 100 / 10);
         chip8.memory[chip8.I + 2] = (byte) (toUnsignedInt(bcd) % 10);
+        chip8.memoryWritten(chip8.I, 3);
     }
 
     /*
@@ -536,9 +885,9 @@ class Cpu {
         Store registers V0 through Vx in memory starting at location I.
         The interpreter copies the values of registers V0 through Vx into memory, starting at the address in I.
     */
-    private void _0xFx55(short opcode) {
-        byte x = getX(opcode);
+    private void _0xFx55(byte x) {
         arraycopy(chip8.registers, 0, chip8.memory, chip8.I, x + 1);
+        chip8.memoryWritten(chip8.I, x + 1);
     }
 
     /*
@@ -546,28 +895,27 @@ class Cpu {
         Read registers V0 through Vx from memory starting at location I.
         The interpreter reads values from memory starting at location I into registers V0 through Vx.
     */
-    private void _0xFx65(short opcode) {
-        byte x = getX(opcode);
+    private void _0xFx65(byte x) {
         arraycopy(chip8.memory, chip8.I, chip8.registers, 0, x + 1);
     }
 
-    private byte getX(short opcode) {
+    static byte getX(short opcode) {
         return (byte) (opcode >>> 8 & 0xF);
     }
 
-    private byte getY(short opcode) {
+    static byte getY(short opcode) {
         return (byte) (opcode >>> 4 & 0xF);
     }
 
-    private byte getKK(short opcode) {
+    static byte getKK(short opcode) {
         return (byte) (opcode & 0xFF);
     }
 
-    private byte getN(short opcode) {
+    static byte getN(short opcode) {
         return (byte) (opcode & 0xF);
     }
 
-    private short getNNN(short opcode) {
+    static short getNNN(short opcode) {
         return (short) (opcode & 0xFFF);
     }
 }
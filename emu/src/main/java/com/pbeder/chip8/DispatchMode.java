@@ -0,0 +1,8 @@
+package com.pbeder.chip8;
+
+public enum DispatchMode {
+    // Two level switch on the opcode nibbles, operands come predecoded like in TABLE
+    SWITCH,
+    // Handler and operands looked up in a table precomputed for every 16-bit opcode
+    TABLE
+}
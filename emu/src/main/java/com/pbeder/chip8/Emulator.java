@@ -0,0 +1,230 @@
+package com.pbeder.chip8;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.LockSupport;
+
+// Runs a Chip8 on its own thread, paced by a Scheduler, and publishes frames through a TripleBuffer
+public class Emulator implements Runnable {
+    // Upper bound for one sleep, keeps instruction pacing smooth between two timer ticks
+    private static final long MAX_SLEEP_NANOS = 1_000_000L;
+    private final Chip8 chip8;
+    private final Scheduler scheduler;
+    private final TripleBuffer frames = new TripleBuffer();
+    private volatile boolean running;
+    private volatile boolean waitingForKey;
+    private volatile boolean rewinding;
+    private volatile Path traceDump;
+    // Copied from chip8 after every advance, frames are only published when the screen changed
+    private volatile long instructionCount;
+    private volatile long idleInstructionsSkipped;
+    private Rewind rewind;
+    private RunAhead runAhead;
+    private long runAheadFrameCount = -1;
+    private long emulationNanos;
+    private Runnable frameListener = () -> {};
+    private volatile Thread thread;
+    private long publishedVersion = -1;
+
+    public Emulator(Chip8 chip8, Scheduler scheduler) {
+        this.chip8 = chip8;
+        this.scheduler = scheduler;
+    }
+
+    public void start() {
+        start(runnable -> {
+            Thread thread = new Thread(runnable, "chip8-emulation");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Any factory works, e.g. one creating virtual threads where the JDK supports them
+    public void start(ThreadFactory threadFactory) {
+        running = true;
+        thread = threadFactory.newThread(this);
+        thread.start();
+    }
+
+    // Records every frame from now on, call before start
+    public void setRewind(Rewind rewind) {
+        this.rewind = rewind;
+        scheduler.setTickListener(() -> rewind.record(chip8));
+    }
+
+    // Presents frames run ahead of the real ones, call before start
+    public void setRunAhead(RunAhead runAhead) {
+        this.runAhead = runAhead;
+    }
+
+    public RunAhead getRunAhead() {
+        return runAhead;
+    }
+
+    // Time spent emulating real frames, to put the cost of run-ahead into relation
+    public long getEmulationNanos() {
+        return emulationNanos;
+    }
+
+    // Safe to read from any thread, keeps counting while the screen stays the same or the ROM waits for a key
+    public long getInstructionCount() {
+        return instructionCount;
+    }
+
+    public long getIdleInstructionsSkipped() {
+        return idleInstructionsSkipped;
+    }
+
+    // The trace is written by the emulation thread before it runs the next instructions, needs -Dchip8.trace=true
+    public void requestTraceDump(Path path) {
+        traceDump = path;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    // While rewinding the emulation steps back one recorded frame per timer tick instead of running
+    public void setRewinding(boolean rewinding) {
+        if (rewind == null) {
+            return;
+        }
+        this.rewinding = rewinding;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    // Runs on the emulation thread after a frame was published or the ROM stopped waiting for a key
+    public void setFrameListener(Runnable frameListener) {
+        this.frameListener = frameListener;
+    }
+
+    // Safe to call from one input thread, a press wakes the emulation thread in case it is parked on Fx0A
+    public void setKey(byte key, boolean isPressed) {
+        scheduler.postKey(key, isPressed);
+        if (isPressed && thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    public boolean isWaitingForKey() {
+        return waitingForKey;
+    }
+
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            if (traceDump != null) {
+                dumpTrace();
+            }
+            if (rewinding) {
+                rewindFrame();
+                continue;
+            }
+            long start = System.nanoTime();
+            scheduler.advance();
+            emulationNanos += System.nanoTime() - start;
+            updateCounters();
+            if (runAhead != null) {
+                publishRunAheadFrame();
+            } else {
+                publishFrame();
+            }
+            updateKeyWait();
+            park();
+        }
+    }
+
+    private void dumpTrace() {
+        Path path = traceDump;
+        traceDump = null;
+        try {
+            chip8.dumpTrace(path);
+            System.out.println("Trace written to " + path.toAbsolutePath());
+        } catch (IOException | IllegalStateException e) {
+            System.out.println("Could not write trace to " + path + ": " + e.getMessage());
+        }
+    }
+
+    private void rewindFrame() {
+        rewind.stepBack(chip8);
+        updateCounters();
+        publishFrame();
+        updateKeyWait();
+        scheduler.resync();
+        LockSupport.parkNanos(this, scheduler.nanosUntilNextTick());
+    }
+
+    private void updateCounters() {
+        instructionCount = chip8.getInstructionCount();
+        idleInstructionsSkipped = chip8.getIdleInstructionsSkipped();
+    }
+
+    private void park() {
+        long nanosUntilNextTick = scheduler.nanosUntilNextTick();
+        if (waitingForKey) {
+            // Only running timers need this thread before the next key press, which unparks it
+            if (chip8.areTimersRunning()) {
+                LockSupport.parkNanos(this, nanosUntilNextTick);
+            } else {
+                LockSupport.park(this);
+            }
+        } else {
+            // An idle ROM only waits for the delay timer, there is nothing to pace before the next tick
+            LockSupport.parkNanos(chip8.isIdle() ? nanosUntilNextTick : Math.min(nanosUntilNextTick, MAX_SLEEP_NANOS));
+        }
+    }
+
+    private void updateKeyWait() {
+        boolean waiting = chip8.isWaitingForKey();
+        if (waiting != waitingForKey) {
+            waitingForKey = waiting;
+            if (!waiting) {
+                frameListener.run();
+            }
+        }
+    }
+
+    // Frames are only handed over when pixels changed, static screens cost the renderer nothing
+    private void publishFrame() {
+        long version = chip8.getScreenVersion();
+        if (version != publishedVersion) {
+            frames.back().capture(chip8, publishedVersion);
+            frames.publish();
+            publishedVersion = version;
+            frameListener.run();
+        }
+    }
+
+    // Once per advance that completed a frame, no matter how many frames it caught up on
+    private void publishRunAheadFrame() {
+        long frameCount = chip8.getFrameCount();
+        if (frameCount != runAheadFrameCount) {
+            Frame frame = frames.back();
+            int instructionsPerFrame = scheduler.getCpuFrequency() / Scheduler.TIMER_FREQUENCY;
+            runAhead.capture(chip8, instructionsPerFrame, frame, publishedVersion);
+            frames.publish();
+            publishedVersion = frame.getVersion();
+            runAheadFrameCount = frameCount;
+            frameListener.run();
+        }
+    }
+
+    // Renderer side, never blocks
+    public Frame acquireFrame() {
+        return frames.acquire();
+    }
+}
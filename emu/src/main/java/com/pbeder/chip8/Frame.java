@@ -0,0 +1,54 @@
+package com.pbeder.chip8;
+
+import static com.pbeder.chip8.Chip8.SCREEN_HEIGHT;
+
+// Snapshot of the packed screen rows handed from the emulation thread to the renderer
+public final class Frame {
+    public static final int ALL_ROWS = -1;
+    private final long[] rows = new long[SCREEN_HEIGHT];
+    private long number;
+    private long version;
+    private long previousVersion;
+    private int dirtyRows;
+
+    void capture(Chip8 chip8, long previousVersion) {
+        chip8.copyScreenRows(rows);
+        number = chip8.getFrameCount();
+        version = chip8.getScreenVersion();
+        dirtyRows = chip8.takeDirtyRows();
+        this.previousVersion = previousVersion;
+    }
+
+    // Bit 63 of a row is its leftmost pixel
+    public long getRow(int y) {
+        return rows[y];
+    }
+
+    // Timer tick the frame was captured at
+    public long getNumber() {
+        return number;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    // Version of the frame published before this one, when it is not the one a consumer saw last it missed frames
+    public long getPreviousVersion() {
+        return previousVersion;
+    }
+
+    // Rows changed since the previously published frame. Consumers that may have missed frames
+    // have to check that frame against the version they last saw first, see dirtyRowsSince.
+    public int getDirtyRows() {
+        return dirtyRows;
+    }
+
+    // Rows that may differ from the frame with the given version, all of them if that frame was skipped
+    public int dirtyRowsSince(long seenVersion) {
+        if (seenVersion == version) {
+            return 0;
+        }
+        return seenVersion == previousVersion ? dirtyRows : ALL_ROWS;
+    }
+}
@@ -0,0 +1,51 @@
+package com.pbeder.chip8;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// Spans one emulated frame, from the timer tick before it to the one ending it.
+// Its duration is wall clock time, including what the emulation thread slept, emulationTime is the part spent running instructions.
+@Name("com.pbeder.chip8.Frame")
+@Label("Frame")
+@Category("Chip-8")
+@Description("One emulated frame, from timer tick to timer tick")
+@StackTrace(false)
+class FrameEvent extends Event {
+    @Label("Frame")
+    long frame;
+
+    @Label("Instructions")
+    @Description("Instructions executed, idle loop iterations that were skipped are not included")
+    long instructions;
+
+    @Label("Idle Instructions")
+    @Description("Instructions skipped as idle loop instead of being executed")
+    long idleInstructions;
+
+    @Label("Sprites Drawn")
+    @Description("Dxyn instructions")
+    long sprites;
+
+    @Label("Screen Clears")
+    @Description("00E0 instructions")
+    long clears;
+
+    @Label("Delay Timer")
+    int delayTimer;
+
+    @Label("Sound Timer")
+    int soundTimer;
+
+    @Label("Emulation Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long emulationTime;
+
+    @Label("Speculative")
+    @Description("Run ahead and thrown away again")
+    boolean speculative;
+}
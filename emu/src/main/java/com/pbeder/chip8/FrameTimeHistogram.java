@@ -0,0 +1,103 @@
+package com.pbeder.chip8;
+
+import java.util.Arrays;
+
+// Rolling histogram over the last window recorded times, e.g. frame times or timer tick lateness in nanoseconds.
+// Buckets are log-linear, 16 per power of two, so a percentile is at most 1/16 above the exact one.
+// Never allocates after construction, synchronized so one thread can record while another one reads.
+public class FrameTimeHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Enough to hold every non negative long
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+    private final int[] counts = new int[BUCKETS];
+    private final long[] window;
+    private int next;
+    private int size;
+
+    public FrameTimeHistogram(int window) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("Histogram has to keep at least one value, was " + window);
+        }
+        this.window = new long[window];
+    }
+
+    // Negative times, e.g. from a tick that ran early, count as 0
+    public synchronized void record(long nanos) {
+        long value = Math.max(0, nanos);
+        if (size == window.length) {
+            counts[bucket(window[next])]--;
+        } else {
+            size++;
+        }
+        window[next] = value;
+        counts[bucket(value)]++;
+        next = (next + 1) % window.length;
+    }
+
+    // e.g. 99 for p99, 0 while nothing was recorded
+    public synchronized long percentile(double percentile) {
+        if (size == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * size));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                return Math.min(highestValue(bucket), max());
+            }
+        }
+        return max();
+    }
+
+    // Exact, not bucketed
+    public synchronized long max() {
+        long max = 0;
+        for (int i = 0; i < size; i++) {
+            max = Math.max(max, window[i]);
+        }
+        return max;
+    }
+
+    public synchronized int countAbove(long nanos) {
+        int above = 0;
+        for (int i = 0; i < size; i++) {
+            if (window[i] > nanos) {
+                above++;
+            }
+        }
+        return above;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(counts, 0);
+        next = 0;
+        size = 0;
+    }
+
+    // Values below SUB_BUCKETS get a bucket each, above that the leading one and the next SUB_BUCKET_BITS bits pick it
+    static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int mantissa = (int) (value >>> exponent) & (SUB_BUCKETS - 1);
+        return (exponent + 1) * SUB_BUCKETS + mantissa;
+    }
+
+    static long highestValue(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS - 1;
+        long mantissa = bucket % SUB_BUCKETS;
+        long next = (SUB_BUCKETS + mantissa + 1) << exponent;
+        // The last bucket ends at Long.MAX_VALUE, its successor would overflow
+        return next < 0 ? Long.MAX_VALUE : next - 1;
+    }
+}
@@ -0,0 +1,108 @@
+package com.pbeder.chip8;
+
+import static com.pbeder.chip8.Chip8.MEMORY_SIZE;
+import static com.pbeder.chip8.Cpu.INSTRUCTION_SIZE_IN_BYTES;
+import static com.pbeder.chip8.Cpu.getKK;
+import static com.pbeder.chip8.Cpu.getNNN;
+import static com.pbeder.chip8.Cpu.getX;
+import static com.pbeder.chip8.Cpu.getY;
+
+// Recognizes loops that only poll the delay timer, e.g.
+//        LD V0, DT
+//        SE V0, 00
+//        JP back
+// Until the next timer tick every iteration of such a loop does exactly the same,
+// so whole iterations left in the instruction budget are skipped instead of interpreted.
+class IdleLoop {
+    static final int MAX_LOOP_LENGTH = 8;
+    static final int MAX_LOOP_SIZE_IN_BYTES = MAX_LOOP_LENGTH * INSTRUCTION_SIZE_IN_BYTES;
+    private final Chip8 chip8;
+    private int writtenRegisters;
+    private long skippedInstructions;
+
+    IdleLoop(Chip8 chip8) {
+        this.chip8 = chip8;
+    }
+
+    // Called with pc at the target of a backward jump, returns how many instructions were skipped
+    int fastForward(int budget) {
+        int length = probe(chip8.pc);
+        if (length == 0) {
+            return 0;
+        }
+        int skipped = budget - budget % length;
+        if (skipped == 0) {
+            return 0;
+        }
+        // Effect of any number of iterations is the one of a single iteration: registers loaded from DT
+        for (int r = 0; writtenRegisters >>> r != 0; r++) {
+            if ((writtenRegisters & 1 << r) != 0) {
+                chip8.registers[r] = (byte) chip8.delayTimer;
+            }
+        }
+        skippedInstructions += skipped;
+        return skipped;
+    }
+
+    // Follows the loop starting at start without executing it, returns instructions per iteration if it is idle, 0 otherwise.
+    // Only Fx07, jumps and register skips are allowed and skips may only read registers loaded from DT earlier in the
+    // same iteration or registers the loop never writes, so every iteration takes the same path.
+    int probe(int start) {
+        int address = start;
+        int written = 0;
+        int readBeforeWritten = 0;
+        for (int length = 1; length <= MAX_LOOP_LENGTH && address + 1 < MEMORY_SIZE; length++) {
+            short opcode = chip8.fetch(address);
+            address += INSTRUCTION_SIZE_IN_BYTES;
+            byte x = getX(opcode);
+            byte y = getY(opcode);
+            switch (opcode & 0xF000) {
+                case 0x1000:
+                    address = getNNN(opcode);
+                    break;
+                case 0x3000:
+                case 0x4000:
+                    readBeforeWritten |= ~written & 1 << x;
+                    if ((value(x, written) == getKK(opcode)) == ((opcode & 0xF000) == 0x3000)) {
+                        address += INSTRUCTION_SIZE_IN_BYTES;
+                    }
+                    break;
+                case 0x5000:
+                case 0x9000:
+                    if ((opcode & 0x000F) != 0) {
+                        return 0;
+                    }
+                    readBeforeWritten |= ~written & (1 << x | 1 << y);
+                    if ((value(x, written) == value(y, written)) == ((opcode & 0xF000) == 0x5000)) {
+                        address += INSTRUCTION_SIZE_IN_BYTES;
+                    }
+                    break;
+                case 0xF000:
+                    if ((opcode & 0x00FF) != 0x07) {
+                        return 0;
+                    }
+                    written |= 1 << x;
+                    break;
+                default:
+                    return 0;
+            }
+            if (address == start) {
+                writtenRegisters = written;
+                return (readBeforeWritten & written) == 0 ? length : 0;
+            }
+        }
+        return 0;
+    }
+
+    private byte value(byte register, int written) {
+        return (written & 1 << register) != 0 ? (byte) chip8.delayTimer : chip8.registers[register];
+    }
+
+    long getSkippedInstructions() {
+        return skippedInstructions;
+    }
+
+    void reset() {
+        skippedInstructions = 0;
+    }
+}
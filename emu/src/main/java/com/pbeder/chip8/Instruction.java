@@ -0,0 +1,25 @@
+package com.pbeder.chip8;
+
+import static com.pbeder.chip8.Cpu.*;
+
+// Opcode decoded once, operands are extracted up front so handlers never touch the raw opcode again
+final class Instruction {
+    final short opcode;
+    // One of the Cpu.OP_* handler ids
+    final int handler;
+    final byte x;
+    final byte y;
+    final byte n;
+    final byte kk;
+    final short nnn;
+
+    Instruction(short opcode, int handler) {
+        this.opcode = opcode;
+        this.handler = handler;
+        this.x = getX(opcode);
+        this.y = getY(opcode);
+        this.n = getN(opcode);
+        this.kk = getKK(opcode);
+        this.nnn = getNNN(opcode);
+    }
+}
@@ -0,0 +1,69 @@
+package com.pbeder.chip8;
+
+import java.util.Arrays;
+
+import static com.pbeder.chip8.Chip8.MEMORY_SIZE;
+
+// Predecoded instruction per even address, filled on first fetch and cleared when memory underneath changes
+class InstructionCache {
+    private final Instruction[] entries = new Instruction[MEMORY_SIZE >> 1];
+    private final Chip8 chip8;
+    private long hits;
+    private long misses;
+    private long invalidations;
+
+    InstructionCache(Chip8 chip8) {
+        this.chip8 = chip8;
+    }
+
+    Instruction get(int address) {
+        if ((address & 1) != 0) {
+            // Odd addresses are legal but rare, they would alias with their even neighbour
+            misses++;
+            return Cpu.decode(chip8.fetch(address));
+        }
+        final int index = address >> 1;
+        Instruction instruction = entries[index];
+        if (instruction != null) {
+            hits++;
+            return instruction;
+        }
+        misses++;
+        instruction = Cpu.decode(chip8.fetch(address));
+        entries[index] = instruction;
+        return instruction;
+    }
+
+    // An even entry covers its own byte and the following one, so both ends are rounded down
+    void invalidate(int address, int length) {
+        final int from = Math.max(0, address >> 1);
+        final int to = Math.min(entries.length - 1, (address + length - 1) >> 1);
+        for (int index = from; index <= to; index++) {
+            if (entries[index] != null) {
+                entries[index] = null;
+                invalidations++;
+            }
+        }
+    }
+
+    void invalidateAll() {
+        for (Instruction entry : entries) {
+            if (entry != null) {
+                invalidations++;
+            }
+        }
+        Arrays.fill(entries, null);
+    }
+
+    long getHits() {
+        return hits;
+    }
+
+    long getMisses() {
+        return misses;
+    }
+
+    long getInvalidations() {
+        return invalidations;
+    }
+}
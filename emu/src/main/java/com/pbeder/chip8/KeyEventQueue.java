@@ -0,0 +1,47 @@
+package com.pbeder.chip8;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Single producer, single consumer ring of timestamped key events, e.g. from the GL thread to the emulation thread.
+// Neither side locks, each publishes its position with an ordered write the other side reads.
+class KeyEventQueue {
+    static final int CAPACITY = 64;
+    static final long EMPTY = Long.MAX_VALUE;
+    private static final int MASK = CAPACITY - 1;
+    private static final byte PRESSED = 0x10;
+    private static final byte KEY_MASK = 0x0F;
+    private final long[] timestamps = new long[CAPACITY];
+    private final byte[] events = new byte[CAPACITY];
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    // Producer side, returns false when the consumer fell CAPACITY events behind and the event was dropped
+    boolean offer(long timestamp, byte key, boolean isPressed) {
+        long position = tail.get();
+        if (position - head.get() == CAPACITY) {
+            return false;
+        }
+        int index = (int) position & MASK;
+        timestamps[index] = timestamp;
+        events[index] = (byte) (key & KEY_MASK | (isPressed ? PRESSED : 0));
+        tail.lazySet(position + 1);
+        return true;
+    }
+
+    // Consumer side, timestamp of the oldest event or EMPTY
+    long peekTimestamp() {
+        long position = head.get();
+        if (position == tail.get()) {
+            return EMPTY;
+        }
+        return timestamps[(int) position & MASK];
+    }
+
+    // Consumer side, only valid after peekTimestamp() returned an event
+    void deliver(Chip8 chip8) {
+        long position = head.get();
+        byte event = events[(int) position & MASK];
+        chip8.setKey((byte) (event & KEY_MASK), (event & PRESSED) != 0);
+        head.lazySet(position + 1);
+    }
+}
@@ -1,45 +1,54 @@
 package com.pbeder.chip8;
 
+import java.nio.ByteBuffer;
+
 /*
  | 1 | 2 | 3 | C |
  | 4 | 5 | 6 | D |
  | 7 | 8 | 9 | E |
  | A | 0 | B | F |
 */
+// One bit per key, only touched by the thread running the Chip8, other threads hand key events over through a KeyEventQueue
 class Keyboard {
-    private boolean[] keyboard = new boolean[16];
+    private static final byte NO_KEY = (byte) 0xFF;
+    private short keys;
+    // Held keys Fx0A already returned, they have to be released and pressed again to be returned another time
+    private short taken;
 
+    // Only the low nibble names a key, Vx above F would otherwise read the sign extension of key F
     boolean isKeyPressed(byte x) {
-//        System.out.println("Is key " + Integer.toHexString(x) +" pressed:" + keyboard[x]);
-        return keyboard[x];
+        return (keys & 1 << (x & 0xF)) != 0;
     }
 
-    byte getFirstKeyPressed() {
-        for (int i = 0; i < keyboard.length; i++) {
-            if (keyboard[i]) {
-                clear();
-                return (byte) i;
-            }
-        }
-        return (byte) 0xFF; //Invalid
+    boolean hasKeyToTake() {
+        return (keys & ~taken) != 0;
     }
 
-    private void clear() {
-        for (int i = 0; i < keyboard.length; i++) {
-            keyboard[i] = false;
+    byte takeKey() {
+        int available = keys & ~taken & 0xFFFF;
+        if (available == 0) {
+            return NO_KEY;
         }
+        int key = Integer.numberOfTrailingZeros(available);
+        taken |= 1 << key;
+        return (byte) key;
     }
 
-    boolean isAnyKeyPressed() {
-        for (boolean key : keyboard) {
-            if (key) {
-                return true;
-            }
-        }
-        return false;
+    void save(ByteBuffer buffer) {
+        buffer.putShort(keys).putShort(taken);
+    }
+
+    void load(ByteBuffer buffer) {
+        keys = buffer.getShort();
+        taken = buffer.getShort();
     }
 
     void setKey(byte key, boolean isPressed) {
-        keyboard[key] = isPressed;
+        if (isPressed) {
+            keys |= 1 << key;
+        } else {
+            keys &= ~(1 << key);
+            taken &= ~(1 << key);
+        }
     }
 }
@@ -0,0 +1,164 @@
+package com.pbeder.chip8;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Process wide counters of every registered Chip8, written in the Prometheus text format, see MetricsServer.
+// Counters are LongAdders, emulation threads add to their own cell instead of contending on one value.
+// Each Chip8 adds once per executeInstructions call and timer tick, never per instruction.
+// Nothing is added while a Chip8 is muted, run-ahead frames are thrown away again and were never really played.
+public class Metrics {
+    private final LongAdder instructions = new LongAdder();
+    private final LongAdder idleInstructions = new LongAdder();
+    private final LongAdder frames = new LongAdder();
+    private final LongAdder beeps = new LongAdder();
+    private final LongAdder keyWaitNanos = new LongAdder();
+    private final ConcurrentMap<String, LongAdder> exceptions = new ConcurrentHashMap<>();
+    private final List<Instance> instances = new CopyOnWriteArrayList<>();
+    private final AtomicInteger nextInstance = new AtomicInteger();
+
+    // Counts everything the Chip8 does from now on
+    public void register(Chip8 chip8) {
+        Instance instance = new Instance(this, nextInstance.getAndIncrement());
+        instances.add(instance);
+        chip8.setMetrics(instance);
+    }
+
+    public void unregister(Chip8 chip8) {
+        Instance instance = chip8.getMetrics();
+        if (instance != null && instance.metrics == this) {
+            instances.remove(instance);
+            chip8.setMetrics(null);
+        }
+    }
+
+    public long getInstructions() {
+        return instructions.sum();
+    }
+
+    public long getIdleInstructions() {
+        return idleInstructions.sum();
+    }
+
+    public long getFrames() {
+        return frames.sum();
+    }
+
+    public long getBeeps() {
+        return beeps.sum();
+    }
+
+    public long getKeyWaitNanos() {
+        return keyWaitNanos.sum();
+    }
+
+    // e.g. "UnsupportedOperationException" for 0nnn
+    public long getExceptions(String type) {
+        LongAdder count = exceptions.get(type);
+        return count == null ? 0 : count.sum();
+    }
+
+    public void writePrometheus(Appendable out) throws IOException {
+        counter(out, "chip8_instructions_total", "Instructions executed", instructions.sum());
+        counter(out, "chip8_idle_instructions_total", "Instructions skipped as idle loop instead of being executed", idleInstructions.sum());
+        counter(out, "chip8_frames_total", "Timer ticks, run-ahead frames that were thrown away are not counted", frames.sum());
+        counter(out, "chip8_beeps_total", "Timer ticks with the sound timer running", beeps.sum());
+        counter(out, "chip8_key_wait_seconds_total", "Time spent blocked on Fx0A until a key was pressed", keyWaitNanos.sum() / 1e9);
+        header(out, "chip8_exceptions_total", "Exceptions thrown while executing instructions, by type", "counter");
+        for (Map.Entry<String, LongAdder> exception : exceptions.entrySet()) {
+            sample(out, "chip8_exceptions_total{type=\"" + exception.getKey() + "\"}", exception.getValue().sum());
+        }
+        // A thread counts everything it allocated, instances stepped by the same thread report the same figure
+        header(out, "chip8_thread_allocated_bytes", "Bytes allocated so far by the whole thread that last stepped each instance", "gauge");
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (Instance instance : instances) {
+            long threadId = instance.threadId;
+            long allocated = threadId == Instance.NO_THREAD ? -1 : threads.getThreadAllocatedBytes(threadId);
+            // -1 once the thread ended or while allocation accounting is off
+            if (allocated >= 0) {
+                sample(out, "chip8_thread_allocated_bytes{thread=\"" + threadId + "\",instance=\"" + instance.id + "\"}", allocated);
+            }
+        }
+        header(out, "jvm_heap_used_bytes", "Heap in use by all instances", "gauge");
+        sample(out, "jvm_heap_used_bytes", ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed());
+    }
+
+    private static void counter(Appendable out, String name, String help, double value) throws IOException {
+        header(out, name, help, "counter");
+        sample(out, name, value);
+    }
+
+    private static void header(Appendable out, String name, String help, String type) throws IOException {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(Appendable out, String series, double value) throws IOException {
+        out.append(series).append(' ');
+        if (value == Math.rint(value)) {
+            out.append(Long.toString((long) value));
+        } else {
+            out.append(Double.toString(value));
+        }
+        out.append('\n');
+    }
+
+    // What a single Chip8 reports into its registry
+    static class Instance {
+        private static final long NO_THREAD = -1;
+        private static final long NOT_WAITING = Long.MIN_VALUE;
+        private final Metrics metrics;
+        private final int id;
+        private volatile long threadId = NO_THREAD;
+        private long keyWaitStart = NOT_WAITING;
+
+        private Instance(Metrics metrics, int id) {
+            this.metrics = metrics;
+            this.id = id;
+        }
+
+        void executed(int instructions, int idleInstructions) {
+            metrics.instructions.add(instructions);
+            if (idleInstructions != 0) {
+                metrics.idleInstructions.add(idleInstructions);
+            }
+            long current = Thread.currentThread().getId();
+            if (threadId != current) {
+                threadId = current;
+            }
+        }
+
+        void ticked(boolean beeped) {
+            metrics.frames.increment();
+            if (beeped) {
+                metrics.beeps.increment();
+            }
+        }
+
+        void failed(RuntimeException exception) {
+            metrics.exceptions.computeIfAbsent(exception.getClass().getSimpleName(), type -> new LongAdder()).increment();
+        }
+
+        void keyWaitStarted() {
+            keyWaitStart = System.nanoTime();
+        }
+
+        void keyWaitEnded() {
+            if (keyWaitStart != NOT_WAITING) {
+                metrics.keyWaitNanos.add(System.nanoTime() - keyWaitStart);
+                keyWaitStart = NOT_WAITING;
+            }
+        }
+
+        void keyWaitRestored(boolean waiting) {
+            keyWaitStart = waiting ? System.nanoTime() : NOT_WAITING;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.pbeder.chip8;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+// Serves Metrics at http://localhost:<port>/metrics for a Prometheus scraper, only reachable from the same host
+public class MetricsServer implements Closeable {
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private final HttpServer server;
+    private final Metrics metrics;
+
+    private MetricsServer(HttpServer server, Metrics metrics) {
+        this.server = server;
+        this.metrics = metrics;
+    }
+
+    // Port 0 picks a free one, see getPort
+    public static MetricsServer start(Metrics metrics, int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        MetricsServer metricsServer = new MetricsServer(server, metrics);
+        server.createContext("/metrics", metricsServer::scrape);
+        server.start();
+        return metricsServer;
+    }
+
+    private void scrape(HttpExchange exchange) throws IOException {
+        StringBuilder text = new StringBuilder();
+        metrics.writePrometheus(text);
+        byte[] body = text.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,121 @@
+package com.pbeder.chip8;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static com.pbeder.chip8.MovieRecorder.END;
+import static com.pbeder.chip8.MovieRecorder.KEY_MASK;
+import static com.pbeder.chip8.MovieRecorder.PRESSED;
+
+// Replays a movie written by MovieRecorder. Frames are run the way Scheduler runs them for the recorded CPU frequency
+// and every key transition is applied at the frame and instruction it was recorded at, so the replay is exact.
+public class MoviePlayer {
+    private final ByteBuffer events;
+    private final long seed;
+    private final int cpuFrequency;
+    private final int romCrc;
+    private final int romLength;
+    private Chip8 chip8;
+    private long startFrame;
+    private long startInstruction;
+    private long nextFrame;
+    private long nextInstruction;
+    private byte nextEvent;
+    private boolean hasNext;
+    private boolean ended;
+
+    public MoviePlayer(ByteBuffer movie) {
+        if (movie.remaining() < 26 || movie.getInt() != MovieRecorder.MAGIC || movie.getShort() != MovieRecorder.VERSION) {
+            throw new IllegalArgumentException("Not a version " + MovieRecorder.VERSION + " movie");
+        }
+        seed = movie.getLong();
+        cpuFrequency = movie.getInt();
+        romCrc = movie.getInt();
+        romLength = movie.getInt();
+        events = movie.slice();
+    }
+
+    public static MoviePlayer read(Path path) throws IOException {
+        return new MoviePlayer(ByteBuffer.wrap(Files.readAllBytes(path)));
+    }
+
+    public boolean isRecordedWith(byte[] rom) {
+        return rom.length == romLength && (int) MovieRecorder.crc(rom) == romCrc;
+    }
+
+    public int getCpuFrequency() {
+        return cpuFrequency;
+    }
+
+    // Call right after the ROM was loaded, puts the recorded seed behind the random generator
+    public void start(Chip8 chip8) {
+        this.chip8 = chip8;
+        chip8.setRandomGenerator(new SplitMixRandomByte(seed));
+        startFrame = chip8.getFrameCount();
+        startInstruction = chip8.getCycleCount();
+        nextFrame = 0;
+        nextInstruction = 0;
+        events.rewind();
+        ended = false;
+        readNext();
+    }
+
+    // Runs one frame with every key transition recorded in it, false once the movie is over
+    public boolean playFrame() {
+        if (ended) {
+            return false;
+        }
+        long frame = chip8.getFrameCount() - startFrame;
+        long frameEnd = (frame + 1) * cpuFrequency / Scheduler.TIMER_FREQUENCY;
+        while (hasNext && nextFrame == frame) {
+            executeUntil(Math.min(nextInstruction, frameEnd));
+            if (nextEvent == END) {
+                ended = true;
+                return false;
+            }
+            chip8.setKey((byte) (nextEvent & KEY_MASK), (nextEvent & PRESSED) != 0);
+            readNext();
+        }
+        executeUntil(frameEnd);
+        chip8.tickTimers();
+        // A movie cut short without END plays until its last event
+        ended = !hasNext;
+        return true;
+    }
+
+    private void executeUntil(long instruction) {
+        long executed = chip8.getCycleCount() - startInstruction;
+        if (instruction > executed) {
+            chip8.executeInstructions((int) (instruction - executed));
+        }
+    }
+
+    private void readNext() {
+        hasNext = events.hasRemaining();
+        if (!hasNext) {
+            return;
+        }
+        try {
+            nextFrame += getVarint();
+            nextInstruction += getVarint();
+            nextEvent = events.get();
+        } catch (BufferUnderflowException e) {
+            // Recording was cut off in the middle of an event, e.g. by a crash
+            hasNext = false;
+        }
+    }
+
+    private long getVarint() {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = events.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.pbeder.chip8;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.CRC32;
+
+// Records every key transition of a Chip8 so that MoviePlayer can replay the session instruction for instruction.
+// Movie files are append-only, big endian:
+//   header: magic int, version short, random seed long, CPU frequency int, ROM CRC32 int, ROM length int
+//   events: frame delta varint, instruction delta varint, key byte with PRESSED set for a press
+//   end:    frame delta varint, instruction delta varint, END byte, only present if the recording was closed
+public class MovieRecorder implements Closeable {
+    static final int MAGIC = 0x43384D56; // "C8MV"
+    static final short VERSION = 1;
+    static final byte PRESSED = 0x10;
+    static final byte KEY_MASK = 0x0F;
+    static final byte END = (byte) 0xFF;
+    private static final int BUFFER_SIZE = 4096;
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final Chip8 chip8;
+    private final long startFrame;
+    private final long startInstruction;
+    private long lastFrame;
+    private long lastInstruction;
+    private boolean failed;
+
+    private MovieRecorder(Chip8 chip8, WritableByteChannel channel) {
+        this.chip8 = chip8;
+        this.channel = channel;
+        this.startFrame = chip8.getFrameCount();
+        this.startInstruction = chip8.getCycleCount();
+    }
+
+    // Call right after the ROM was loaded and before anything ran, cpuFrequency is the one of the Scheduler driving chip8.
+    // Replaces the random generator with a freshly seeded one so the seed can be written into the movie.
+    public static MovieRecorder start(Chip8 chip8, byte[] rom, int cpuFrequency, WritableByteChannel channel) {
+        long seed = ThreadLocalRandom.current().nextLong();
+        chip8.setRandomGenerator(new SplitMixRandomByte(seed));
+        MovieRecorder recorder = new MovieRecorder(chip8, channel);
+        recorder.buffer.putInt(MAGIC).putShort(VERSION).putLong(seed)
+                .putInt(cpuFrequency).putInt((int) crc(rom)).putInt(rom.length);
+        chip8.setRecorder(recorder);
+        return recorder;
+    }
+
+    // Called by Chip8.setKey on the emulation thread
+    void keyChanged(byte key, boolean isPressed) {
+        append((byte) (key & KEY_MASK | (isPressed ? PRESSED : 0)));
+    }
+
+    private void append(byte event) {
+        if (failed) {
+            return;
+        }
+        long frame = chip8.getFrameCount() - startFrame;
+        long instruction = chip8.getCycleCount() - startInstruction;
+        // Largest possible event, two 10 byte varints and the event itself
+        if (buffer.remaining() < 21) {
+            flush();
+        }
+        putVarint(frame - lastFrame);
+        putVarint(instruction - lastInstruction);
+        buffer.put(event);
+        lastFrame = frame;
+        lastInstruction = instruction;
+    }
+
+    private void putVarint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) (value | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    public void flush() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            System.out.println("Could not write movie, recording stopped");
+            e.printStackTrace();
+            failed = true;
+        }
+        buffer.clear();
+    }
+
+    // Marks where the recording ended so the replay runs up to exactly that point
+    @Override
+    public void close() throws IOException {
+        chip8.setRecorder(null);
+        append(END);
+        flush();
+        channel.close();
+    }
+
+    static long crc(byte[] rom) {
+        CRC32 crc = new CRC32();
+        crc.update(rom);
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,100 @@
+package com.pbeder.chip8;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+import static com.pbeder.chip8.Chip8.MEMORY_SIZE;
+
+// Counts executed instructions per opcode family, per address and per subroutine call path, see Chip8.startProfiling.
+// Instructions skipped as part of an idle loop were never executed and are not counted.
+public class Profiler {
+    // Indexed by the handler ids in Cpu
+    private static final String[] OPCODE_FAMILIES = {
+            "00E0", "00EE", "0nnn", "1nnn", "2nnn", "3xkk", "4xkk", "5xy0", "6xkk", "7xkk",
+            "8xy0", "8xy1", "8xy2", "8xy3", "8xy4", "8xy5", "8xy6", "8xy7", "8xyE", "9xy0",
+            "Annn", "Bnnn", "Cxkk", "Dxyn", "Ex9E", "ExA1", "Fx07", "Fx0A", "Fx15", "Fx18",
+            "Fx1E", "Fx29", "Fx33", "Fx55", "Fx65", "unknown"
+    };
+    private final long[] opcodeCounts = new long[OPCODE_FAMILIES.length];
+    private final long[] addressCounts = new long[MEMORY_SIZE];
+    private final CallTree callTree = new CallTree();
+
+    void count(int pc, int handler, int stackPointer) {
+        opcodeCounts[handler]++;
+        addressCounts[pc & 0xFFF]++;
+        callTree.count(pc, stackPointer);
+    }
+
+    public long getTotal() {
+        return Arrays.stream(opcodeCounts).sum();
+    }
+
+    // e.g. "Dxyn" or "8xy4", as in Cowgod's reference
+    public long getOpcodeCount(String family) {
+        int handler = Arrays.asList(OPCODE_FAMILIES).indexOf(family);
+        if (handler < 0) {
+            throw new IllegalArgumentException("Unknown opcode family " + family);
+        }
+        return opcodeCounts[handler];
+    }
+
+    public long getAddressCount(int address) {
+        return addressCounts[address];
+    }
+
+    // Instructions executed in the last routine of a collapsed stack like "main;0x2f0;0x31a", not in what it called
+    public long getSelfCount(String stack) {
+        return callTree.getSelfCount(stack);
+    }
+
+    // Most executed family first, families never executed are left out
+    public void writeOpcodesCsv(Appendable out) throws IOException {
+        out.append("opcode,count\n");
+        for (int handler : byCountDescending()) {
+            out.append(OPCODE_FAMILIES[handler]).append(',').append(Long.toString(opcodeCounts[handler])).append('\n');
+        }
+    }
+
+    // One line per executed address in ascending order, the format Disassembler --profile reads
+    public void writeHeatMapCsv(Appendable out) throws IOException {
+        out.append("address,count\n");
+        for (int address = 0; address < MEMORY_SIZE; address++) {
+            if (addressCounts[address] != 0) {
+                out.append(String.format("0x%03x,%d\n", address, addressCounts[address]));
+            }
+        }
+    }
+
+    // Routines are labelled by address, Disassembler --flamegraph adds the decoded instruction each one starts with
+    public void writeCollapsedStacks(Appendable out) throws IOException {
+        callTree.writeCollapsedStacks(out);
+    }
+
+    public void writeJson(Appendable out) throws IOException {
+        out.append("{\"total\":").append(Long.toString(getTotal())).append(",\"opcodes\":{");
+        String separator = "";
+        for (int handler : byCountDescending()) {
+            out.append(separator).append('"').append(OPCODE_FAMILIES[handler]).append("\":").append(Long.toString(opcodeCounts[handler]));
+            separator = ",";
+        }
+        out.append("},\"addresses\":{");
+        separator = "";
+        for (int address = 0; address < MEMORY_SIZE; address++) {
+            if (addressCounts[address] != 0) {
+                out.append(separator).append(String.format("\"0x%03x\":%d", address, addressCounts[address]));
+                separator = ",";
+            }
+        }
+        out.append("}}\n");
+    }
+
+    private Integer[] byCountDescending() {
+        return IntStream.range(0, opcodeCounts.length)
+                .filter(handler -> opcodeCounts[handler] != 0)
+                .boxed()
+                .sorted(Comparator.comparingLong((Integer handler) -> opcodeCounts[handler]).reversed())
+                .toArray(Integer[]::new);
+    }
+}
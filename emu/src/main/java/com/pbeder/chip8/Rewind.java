@@ -0,0 +1,194 @@
+package com.pbeder.chip8;
+
+import java.nio.ByteBuffer;
+
+import static com.pbeder.chip8.Chip8.STATE_SIZE;
+
+// Keeps the last frames of a Chip8 in a fixed size ring to step back through them one frame at a time.
+// Only the newest state is held in full, every recorded frame adds the XOR of its state and the previous one,
+// run length encoded since most of memory and screen stay the same between two frames. XOR is its own inverse,
+// so decoding the newest delta into the newest state yields the frame before, no keyframes are needed to go back.
+// When the ring is full the oldest deltas are dropped, which only shortens how far back one can go.
+public class Rewind {
+    public static final int FRAMES_PER_SECOND = Scheduler.TIMER_FREQUENCY;
+    // Typical deltas are a few dozen bytes, this leaves room for frames that redraw large parts of the screen
+    private static final int AVERAGE_BYTES_PER_FRAME = 256;
+    private static final int MIN_ZERO_RUN = 4;
+    private final int maxFrames;
+    private final byte[] ring;
+    private final int[] offsets;
+    private final int[] lengths;
+    private final byte[] latest = new byte[STATE_SIZE];
+    private final byte[] current = new byte[STATE_SIZE];
+    private final ByteBuffer latestBuffer = ByteBuffer.wrap(latest);
+    private final ByteBuffer currentBuffer = ByteBuffer.wrap(current);
+    private boolean hasLatest;
+    private int oldest;
+    private int count;
+
+    public Rewind(int seconds) {
+        this(seconds * FRAMES_PER_SECOND, seconds * FRAMES_PER_SECOND * AVERAGE_BYTES_PER_FRAME);
+    }
+
+    Rewind(int maxFrames, int capacityInBytes) {
+        if (maxFrames <= 0) {
+            throw new IllegalArgumentException("Rewind has to keep at least one frame, was " + maxFrames);
+        }
+        this.maxFrames = maxFrames;
+        // A delta never grows beyond the state plus the header of a single run, see encode
+        this.ring = new byte[Math.max(capacityInBytes, 2 * STATE_SIZE)];
+        this.offsets = new int[maxFrames];
+        this.lengths = new int[maxFrames];
+    }
+
+    // Call once per frame, after the timers ticked
+    public void record(Chip8 chip8) {
+        currentBuffer.clear();
+        chip8.saveState(currentBuffer);
+        if (hasLatest) {
+            for (int i = 0; i < STATE_SIZE; i++) {
+                latest[i] ^= current[i];
+            }
+            append(latest);
+        }
+        System.arraycopy(current, 0, latest, 0, STATE_SIZE);
+        hasLatest = true;
+    }
+
+    // Restores the frame recorded before the newest one and forgets the newest one, false if there is none left
+    public boolean stepBack(Chip8 chip8) {
+        if (count == 0) {
+            return false;
+        }
+        int newest = index(count - 1);
+        decodeInto(latest, offsets[newest], lengths[newest]);
+        count--;
+        latestBuffer.clear();
+        chip8.loadState(latestBuffer);
+        return true;
+    }
+
+    public int getFramesRecorded() {
+        return count;
+    }
+
+    public int getCapacityInBytes() {
+        return ring.length;
+    }
+
+    public void clear() {
+        hasLatest = false;
+        oldest = 0;
+        count = 0;
+    }
+
+    private void append(byte[] delta) {
+        int length = encodedLength(delta);
+        int end = count == 0 ? 0 : offsets[index(count - 1)] + lengths[index(count - 1)];
+        int position = end + length > ring.length ? 0 : end;
+        while (count == maxFrames || count > 0 && overlapsRecorded(position, length, end)) {
+            oldest = (oldest + 1) % maxFrames;
+            count--;
+        }
+        encode(delta, position);
+        int newest = index(count);
+        offsets[newest] = position;
+        lengths[newest] = length;
+        count++;
+    }
+
+    // Recorded deltas run from the oldest one to end, wrapping around the end of the ring if the oldest lies behind it
+    private boolean overlapsRecorded(int position, int length, int end) {
+        int start = offsets[oldest];
+        if (start < end) {
+            return overlaps(position, length, start, end);
+        }
+        return overlaps(position, length, start, ring.length) || overlaps(position, length, 0, end);
+    }
+
+    private static boolean overlaps(int position, int length, int start, int end) {
+        return start < position + length && position < end;
+    }
+
+    private int index(int i) {
+        return (oldest + i) % maxFrames;
+    }
+
+    // Runs of (zero count, literal count, literal bytes), both counts as unsigned varints.
+    // Zero runs shorter than MIN_ZERO_RUN stay in the literals, so each run saves at least what its header costs.
+    private int encodedLength(byte[] delta) {
+        return encode(delta, -1);
+    }
+
+    private int encode(byte[] delta, int position) {
+        int out = position;
+        int length = 0;
+        int i = 0;
+        while (i < STATE_SIZE) {
+            int zeros = zeroRun(delta, i);
+            int literalStart = i + zeros;
+            int literalEnd = literalStart;
+            while (literalEnd < STATE_SIZE && zeroRun(delta, literalEnd) < MIN_ZERO_RUN) {
+                literalEnd++;
+            }
+            int literals = literalEnd - literalStart;
+            length += varintLength(zeros) + varintLength(literals) + literals;
+            if (position >= 0) {
+                out = putVarint(out, zeros);
+                out = putVarint(out, literals);
+                System.arraycopy(delta, literalStart, ring, out, literals);
+                out += literals;
+            }
+            i = literalEnd;
+        }
+        return length;
+    }
+
+    private void decodeInto(byte[] state, int position, int length) {
+        int in = position;
+        int end = position + length;
+        int i = 0;
+        while (in < end) {
+            int zeros = getVarint(in);
+            in += varintLength(zeros);
+            int literals = getVarint(in);
+            in += varintLength(literals);
+            i += zeros;
+            for (int literalEnd = i + literals; i < literalEnd; i++) {
+                state[i] ^= ring[in++];
+            }
+        }
+    }
+
+    private static int zeroRun(byte[] delta, int from) {
+        int i = from;
+        while (i < STATE_SIZE && delta[i] == 0) {
+            i++;
+        }
+        return i - from;
+    }
+
+    private static int varintLength(int value) {
+        return value < 0x80 ? 1 : value < 0x4000 ? 2 : 3;
+    }
+
+    private int putVarint(int position, int value) {
+        while (value >= 0x80) {
+            ring[position++] = (byte) (value | 0x80);
+            value >>>= 7;
+        }
+        ring[position++] = (byte) value;
+        return position;
+    }
+
+    private int getVarint(int position) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = ring[position++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.pbeder.chip8;
+
+import java.nio.ByteBuffer;
+
+// Presents the frame a few frames ahead of the real one: save the state, run ahead with the keys currently held,
+// capture the screen, load the state again. Games that poll the keyboard once per frame react a frame earlier
+// for every frame run ahead, each one costs another frame of emulation that gets thrown away.
+public class RunAhead {
+    private final int frames;
+    private final ByteBuffer state = ByteBuffer.allocateDirect(Chip8.STATE_SIZE);
+    private long speculativeFrames;
+    private long speculativeNanos;
+
+    public RunAhead(int frames) {
+        if (frames <= 0) {
+            throw new IllegalArgumentException("Run-ahead needs at least one frame, was " + frames);
+        }
+        this.frames = frames;
+    }
+
+    // Leaves the Chip8 exactly as it was, nothing run ahead is heard
+    void capture(Chip8 chip8, int instructionsPerFrame, Frame target, long previousVersion) {
+        long start = System.nanoTime();
+        state.clear();
+        chip8.saveState(state);
+        chip8.setMuted(true);
+        for (int i = 0; i < frames; i++) {
+            chip8.stepTimes(instructionsPerFrame);
+        }
+        target.capture(chip8, previousVersion);
+        state.flip();
+        chip8.loadState(state);
+        chip8.setMuted(false);
+        speculativeFrames += frames;
+        speculativeNanos += System.nanoTime() - start;
+    }
+
+    public int getFrames() {
+        return frames;
+    }
+
+    // Frames emulated only to be thrown away
+    public long getSpeculativeFrames() {
+        return speculativeFrames;
+    }
+
+    // Time spent saving, running ahead and loading again
+    public long getSpeculativeNanos() {
+        return speculativeNanos;
+    }
+}
@@ -0,0 +1,114 @@
+package com.pbeder.chip8;
+
+import java.util.function.LongSupplier;
+
+// Paces a Chip8 against a monotonic clock: instructions at a configurable frequency, timers at exactly 60 Hz.
+// Everything due is derived from the time since origin, so rounding never accumulates into drift.
+// Key events posted from other threads are applied at the instruction their timestamp maps to.
+public class Scheduler {
+    public static final int TIMER_FREQUENCY = 60;
+    public static final int DEFAULT_CPU_FREQUENCY = 600;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    // After a longer stall (debugger, window drag, GC) the missed time is dropped instead of replayed at once
+    private static final long MAX_CATCH_UP_NANOS = NANOS_PER_SECOND / 4;
+    private static final int LATENESS_WINDOW = 5 * TIMER_FREQUENCY;
+
+    private final Chip8 chip8;
+    private final int cpuFrequency;
+    private final LongSupplier clock;
+    private final KeyEventQueue input = new KeyEventQueue();
+    private final FrameTimeHistogram tickLateness = new FrameTimeHistogram(LATENESS_WINDOW);
+    private Runnable tickListener = () -> {};
+    private long origin;
+    private long ticks;
+    private long instructions;
+    private long droppedNanos;
+
+    public Scheduler(Chip8 chip8, int cpuFrequency) {
+        this(chip8, cpuFrequency, System::nanoTime);
+    }
+
+    Scheduler(Chip8 chip8, int cpuFrequency, LongSupplier clock) {
+        if (cpuFrequency <= 0) {
+            throw new IllegalArgumentException("CPU frequency has to be positive, was " + cpuFrequency);
+        }
+        this.chip8 = chip8;
+        this.cpuFrequency = cpuFrequency;
+        this.clock = clock;
+        this.origin = clock.getAsLong();
+    }
+
+    // Runs everything that became due since the last call, timer ticks interleaved at their exact instruction
+    public void advance() {
+        long elapsed = clock.getAsLong() - origin;
+        long behind = elapsed - ticks * NANOS_PER_SECOND / TIMER_FREQUENCY;
+        if (behind > MAX_CATCH_UP_NANOS) {
+            long dropped = behind - MAX_CATCH_UP_NANOS;
+            origin += dropped;
+            elapsed -= dropped;
+            droppedNanos += dropped;
+        }
+        long ticksDue = elapsed * TIMER_FREQUENCY / NANOS_PER_SECOND;
+        while (ticks < ticksDue) {
+            executeUntil((ticks + 1) * cpuFrequency / TIMER_FREQUENCY);
+            chip8.tickTimers();
+            ticks++;
+            tickLateness.record(elapsed - ticks * NANOS_PER_SECOND / TIMER_FREQUENCY);
+            tickListener.run();
+        }
+        executeUntil(elapsed * cpuFrequency / NANOS_PER_SECOND);
+    }
+
+    // Runs right after every timer tick, i.e. once per emulated frame
+    public void setTickListener(Runnable tickListener) {
+        this.tickListener = tickListener;
+    }
+
+    // Forgets the time since the last advance instead of catching up on it, e.g. after the emulation was rewound
+    public void resync() {
+        origin = clock.getAsLong() - ticks * NANOS_PER_SECOND / TIMER_FREQUENCY;
+    }
+
+    // Safe to call from any one thread, returns false if the event was dropped because input is not being consumed
+    public boolean postKey(byte key, boolean isPressed) {
+        return input.offer(clock.getAsLong(), key, isPressed);
+    }
+
+    private void executeUntil(long instructionsDue) {
+        for (long timestamp = input.peekTimestamp(); timestamp != KeyEventQueue.EMPTY; timestamp = input.peekTimestamp()) {
+            long instructionAt = (timestamp - origin) * cpuFrequency / NANOS_PER_SECOND;
+            if (instructionAt > instructionsDue) {
+                break;
+            }
+            execute(instructionAt);
+            input.deliver(chip8);
+        }
+        execute(instructionsDue);
+    }
+
+    private void execute(long instructionsDue) {
+        if (instructionsDue > instructions) {
+            chip8.executeInstructions((int) (instructionsDue - instructions));
+            instructions = instructionsDue;
+        }
+    }
+
+    // Time left until the next timer tick, e.g. to sleep on a thread that has nothing else to do
+    public long nanosUntilNextTick() {
+        long nextTick = origin + (ticks + 1) * NANOS_PER_SECOND / TIMER_FREQUENCY;
+        return Math.max(0, nextTick - clock.getAsLong());
+    }
+
+    public int getCpuFrequency() {
+        return cpuFrequency;
+    }
+
+    // How long after its wall clock time each of the last ticks ran, time dropped after a stall is not included
+    public FrameTimeHistogram getTickLateness() {
+        return tickLateness;
+    }
+
+    public long getDroppedNanos() {
+        return droppedNanos;
+    }
+}
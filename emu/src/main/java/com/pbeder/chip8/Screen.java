@@ -1,5 +1,9 @@
 package com.pbeder.chip8;
 
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
 import static com.pbeder.chip8.Chip8.SCREEN_HEIGHT;
 import static com.pbeder.chip8.Chip8.SCREEN_WIDTH;
 import static java.lang.Byte.toUnsignedInt;
@@ -7,10 +11,21 @@ import static java.lang.Byte.toUnsignedInt;
 //The original implementation of the Chip-8 language used a 64x32-pixel monochrome display with this format:
 //        (0,0)     (63,0)
 //        (0,31)	(63,31)
+//Each row is packed into one long, the most significant bit is column 0 and the least significant bit is column 63.
 class Screen {
-    private boolean[][] screen = new boolean[SCREEN_HEIGHT][SCREEN_WIDTH];
+    private static final int SPRITE_WIDTH = 8;
+    private static final int SPRITE_SHIFT = Long.SIZE - SPRITE_WIDTH;
+    private final long[] rows = new long[SCREEN_HEIGHT];
+    private final LongBuffer readOnlyRows = LongBuffer.wrap(rows).asReadOnlyBuffer();
     private Chip8 chip8;
     private boolean wrapScreen = true;
+    // Bumped on every change to the pixels, never on draws that leave the screen as it was
+    private long version;
+    // Bit y is set when row y changed since the last takeDirtyRows()
+    private int dirtyRows;
+    // Never restored by loadRows, they count what the emulation did, not what the state looks like
+    private long spritesDrawn;
+    private long clears;
 
     Screen(Chip8 chip8) {
         this.chip8 = chip8;
@@ -21,59 +36,135 @@ class Screen {
         this.wrapScreen = wrapScreen;
     }
 
+    // Unpacks rows into a fresh array, prefer getRows() on hot paths
     boolean[][] getScreen() {
+        boolean[][] screen = new boolean[SCREEN_HEIGHT][SCREEN_WIDTH];
+        for (int y = 0; y < SCREEN_HEIGHT; y++) {
+            for (int x = 0; x < SCREEN_WIDTH; x++) {
+                screen[y][x] = isPixelSet(rows[y], x);
+            }
+        }
         return screen;
     }
 
-    void drawSprite(byte x, byte y, byte[] sprite) {
-        for (int i = 0; i < sprite.length; i++) {
-            byte yy = getY(y, i);
-            byte spriteLine = sprite[i];
-            drawLine(x, yy, spriteLine);
+    LongBuffer getRows() {
+        return readOnlyRows.duplicate();
+    }
+
+    long getRow(int y) {
+        return rows[y];
+    }
+
+    void copyRows(long[] target) {
+        System.arraycopy(rows, 0, target, 0, SCREEN_HEIGHT);
+    }
+
+    void saveRows(ByteBuffer buffer) {
+        for (long row : rows) {
+            buffer.putLong(row);
         }
     }
 
-    private byte getY(byte y, int i) {
-        if (wrapScreen) {
-            return (byte) ((toUnsignedInt(y) + i) % 32);
-        } else {
-            return y;
+    // Every row counts as changed, whatever was presented before belongs to another state
+    void loadRows(ByteBuffer buffer) {
+        for (int y = 0; y < SCREEN_HEIGHT; y++) {
+            rows[y] = buffer.getLong();
         }
+        dirtyRows = -1;
+        version++;
     }
 
-    private void drawLine(byte x, byte y, byte sprite) {
-        final boolean[] screenLine = screen[y];
-        for (int i = 0; i < 8; i++) {
-            int currentX = getX(x, i);
-            boolean currentSpriteBit = (sprite >> (7 - i) & 0x1) != 0;
-            checkCollision(screenLine[currentX], currentSpriteBit);
-            screenLine[currentX] = screenLine[currentX] ^ currentSpriteBit;
+    void drawSprite(byte x, byte y, byte[] sprite) {
+        drawSprite(x, y, sprite, 0, sprite.length);
+    }
+
+    // Draws length bytes starting at offset straight from the source array, e.g. Chip8 memory at I
+    void drawSprite(byte x, byte y, byte[] source, int offset, int length) {
+        final int column = toUnsignedInt(x) % SCREEN_WIDTH;
+        final int top = toUnsignedInt(y) % SCREEN_HEIGHT;
+        spritesDrawn++;
+        long collision = 0;
+        int changedRows = 0;
+        for (int i = 0; i < length; i++) {
+            int row = top + i;
+            if (row >= SCREEN_HEIGHT) {
+                if (!wrapScreen) {
+                    break;
+                }
+                row %= SCREEN_HEIGHT;
+            }
+            long line = spriteLine(source[offset + i], column);
+            collision |= rows[row] & line;
+            rows[row] ^= line;
+            if (line != 0) {
+                changedRows |= 1 << row;
+            }
         }
+        if (collision != 0) {
+            chip8.setCarry(true);
+        }
+        markChanged(changedRows);
     }
 
-    private byte getX(byte x, int i) {
+    private long spriteLine(byte sprite, int column) {
+        final long line = (long) toUnsignedInt(sprite) << SPRITE_SHIFT;
         if (wrapScreen) {
-            return (byte) ((toUnsignedInt(x) + i) % 64);
+            return Long.rotateRight(line, column);
         } else {
-            return x;
+            return line >>> column;
         }
     }
 
-    private void checkCollision(boolean screenPixel, boolean spritePixel) {
-        if (screenPixel && spritePixel) {
-            chip8.setCarry(true);
-        }
+    private static boolean isPixelSet(long row, int x) {
+        return (row << x) < 0;
     }
 
     void setPixel(byte x, byte y) {
-        screen[y][x] = true;
+        long previous = rows[y];
+        rows[y] |= Long.MIN_VALUE >>> x;
+        if (rows[y] != previous) {
+            markChanged(1 << y);
+        }
     }
 
     void clear() {
-        for (int i = 0; i < SCREEN_HEIGHT; i++) {
-            for (int j = 0; j < SCREEN_WIDTH; j++) {
-                screen[i][j] = false;
+        clears++;
+        int changedRows = 0;
+        for (int y = 0; y < SCREEN_HEIGHT; y++) {
+            if (rows[y] != 0) {
+                changedRows |= 1 << y;
             }
         }
+        Arrays.fill(rows, 0L);
+        markChanged(changedRows);
+    }
+
+    private void markChanged(int changedRows) {
+        if (changedRows != 0) {
+            dirtyRows |= changedRows;
+            version++;
+        }
+    }
+
+    long getSpritesDrawn() {
+        return spritesDrawn;
+    }
+
+    long getClears() {
+        return clears;
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    int getDirtyRows() {
+        return dirtyRows;
+    }
+
+    int takeDirtyRows() {
+        int taken = dirtyRows;
+        dirtyRows = 0;
+        return taken;
     }
 }
@@ -0,0 +1,49 @@
+package com.pbeder.chip8;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Configuration a ROM runs with, committed once it is loaded so every recording says what produced its frames
+@Name("com.pbeder.chip8.Session")
+@Label("Session")
+@Category("Chip-8")
+@Description("ROM and configuration of an emulation session")
+@StackTrace(false)
+public class SessionEvent extends Event {
+    @Label("ROM")
+    String rom;
+
+    @Label("CPU Frequency")
+    @Description("Instructions per second")
+    int cpuFrequency;
+
+    @Label("Dispatch Mode")
+    String dispatchMode;
+
+    @Label("Idle Loop Skipping")
+    boolean idleLoopSkipping;
+
+    @Label("Rewind Seconds")
+    int rewindSeconds;
+
+    @Label("Run-Ahead Frames")
+    int runAheadFrames;
+
+    // rewindSeconds and runAheadFrames of 0 for sessions without rewinding or run-ahead
+    public static void commit(String rom, Chip8 chip8, int cpuFrequency, int rewindSeconds, int runAheadFrames) {
+        SessionEvent event = new SessionEvent();
+        if (event.shouldCommit()) {
+            event.rom = rom;
+            event.cpuFrequency = cpuFrequency;
+            event.dispatchMode = chip8.getDispatchMode().name();
+            event.idleLoopSkipping = chip8.isIdleLoopSkipping();
+            event.rewindSeconds = rewindSeconds;
+            event.runAheadFrames = runAheadFrames;
+            event.commit();
+        }
+    }
+}
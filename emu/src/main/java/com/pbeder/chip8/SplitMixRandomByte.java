@@ -0,0 +1,66 @@
+package com.pbeder.chip8;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+// SplitMix64 as in java.util.SplittableRandom, minus the synchronization and boxing of Random/Supplier<Byte>.
+// Not thread safe, every Chip8 owns its own instance.
+public final class SplitMixRandomByte implements RandomByte {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private long seed;
+    private long gamma;
+
+    public SplitMixRandomByte(long seed) {
+        this(seed, GOLDEN_GAMMA);
+    }
+
+    private SplitMixRandomByte(long seed, long gamma) {
+        this.seed = seed;
+        this.gamma = gamma;
+    }
+
+    public static SplitMixRandomByte withRandomSeed() {
+        return new SplitMixRandomByte(ThreadLocalRandom.current().nextLong());
+    }
+
+    @Override
+    public byte nextByte() {
+        return (byte) (mix64(nextSeed()) >>> 56);
+    }
+
+    // Independent generator, splitting the same seed the same number of times always yields the same streams
+    public SplitMixRandomByte split() {
+        return new SplitMixRandomByte(mix64(nextSeed()), mixGamma(nextSeed()));
+    }
+
+    long getSeed() {
+        return seed;
+    }
+
+    long getGamma() {
+        return gamma;
+    }
+
+    // Continues exactly where the generator with this seed and gamma stood, e.g. when loading a save state
+    void restore(long seed, long gamma) {
+        this.seed = seed;
+        this.gamma = gamma;
+    }
+
+    private long nextSeed() {
+        return seed += gamma;
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static long mixGamma(long z) {
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        z = (z ^ (z >>> 33)) | 1L;
+        int n = Long.bitCount(z ^ (z >>> 1));
+        return (n < 24) ? z ^ 0xAAAAAAAAAAAAAAAAL : z;
+    }
+}
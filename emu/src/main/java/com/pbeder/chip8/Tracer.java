@@ -0,0 +1,87 @@
+package com.pbeder.chip8;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+// Keeps the last executed instructions in preallocated arrays, run with -Dchip8.trace=true to turn it on.
+// ENABLED is static final, so with tracing off the JIT drops every call site like dead code.
+// Trace files are big endian: magic int, version short, record count int, then oldest to newest records of
+// pc short, opcode short, I short after the instruction, Vx byte after the instruction.
+class Tracer {
+    static final boolean ENABLED = Boolean.getBoolean("chip8.trace");
+    static final int MAGIC = 0x43385452; // "C8TR"
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = Integer.BYTES + Short.BYTES + Integer.BYTES;
+    static final int RECORD_SIZE = 3 * Short.BYTES + Byte.BYTES;
+    private static final int DEFAULT_CAPACITY = 1 << 16;
+    private static final String ERROR_TRACE_FILE = System.getProperty("chip8.trace.file", "chip8-trace.bin");
+    private final int mask;
+    private final short[] pcs;
+    private final short[] opcodes;
+    private final short[] indexes;
+    private final byte[] values;
+    private long count;
+
+    Tracer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    // Capacity has to be a power of two
+    Tracer(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Trace capacity has to be a power of two, was " + capacity);
+        }
+        mask = capacity - 1;
+        pcs = new short[capacity];
+        opcodes = new short[capacity];
+        indexes = new short[capacity];
+        values = new byte[capacity];
+    }
+
+    void record(short pc, short opcode, short index, byte vx) {
+        int slot = (int) count++ & mask;
+        pcs[slot] = pc;
+        opcodes[slot] = opcode;
+        indexes[slot] = index;
+        values[slot] = vx;
+    }
+
+    int size() {
+        return (int) Math.min(count, mask + 1);
+    }
+
+    void dump(Path path) throws IOException {
+        int size = size();
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + size * RECORD_SIZE);
+        buffer.putInt(MAGIC).putShort(VERSION).putInt(size);
+        for (long i = count - size; i < count; i++) {
+            int slot = (int) i & mask;
+            buffer.putShort(pcs[slot]).putShort(opcodes[slot]).putShort(indexes[slot]).put(values[slot]);
+        }
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(path, CREATE, TRUNCATE_EXISTING, WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    // Leaves the instructions that led to the error next to the working directory, the error itself is rethrown by the caller
+    void dumpOnError(RuntimeException error) {
+        Path path = Paths.get(ERROR_TRACE_FILE);
+        try {
+            dump(path);
+            System.out.println("Last " + size() + " instructions before " + error + " traced to " + path.toAbsolutePath());
+        } catch (IOException e) {
+            System.out.println("Could not write trace to " + path);
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.pbeder.chip8;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Single producer, single consumer frame exchange, neither side ever blocks or waits for the other.
+// Producer fills its back frame and swaps it with the middle one, consumer swaps the middle one with its front
+// frame only if a fresher frame was published since.
+public class TripleBuffer {
+    private static final int INDEX_MASK = 0b011;
+    private static final int FRESH = 0b100;
+    private final Frame[] frames = {new Frame(), new Frame(), new Frame()};
+    private final AtomicInteger middle = new AtomicInteger(1);
+    private int back = 0;
+    private int front = 2;
+
+    // Producer side
+    Frame back() {
+        return frames[back];
+    }
+
+    // Producer side
+    void publish() {
+        back = middle.getAndSet(back | FRESH) & INDEX_MASK;
+    }
+
+    // Consumer side, returns the latest published frame, stays valid until the next acquire
+    public Frame acquire() {
+        if ((middle.get() & FRESH) != 0) {
+            front = middle.getAndSet(front) & INDEX_MASK;
+        }
+        return frames[front];
+    }
+}
@@ -0,0 +1,75 @@
+package com.pbeder.chip8;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+public class Chip8AllocationTest extends Chip8TestBase {
+
+    private static final int WARM_UP_FRAMES = 20_000;
+    private static final int MEASURED_FRAMES = 5_000;
+    // Measuring itself may allocate a few bytes, a single sprite copy per frame would be far above this
+    private static final long ALLOCATION_TOLERANCE_IN_BYTES = 1024;
+    // One-off allocations of the VM (e.g. recompilation) can land in any round, a leak shows up in all of them
+    private static final int MEASURED_ROUNDS = 3;
+
+    // Draws, clears, calls, returns, randomizes and stores BCD in an endless loop
+    private static final byte[] SPRITE_HEAVY_PROGRAM = {
+            (byte) 0x60, (byte) 0x00, // 200: LD V0, 00
+            (byte) 0x61, (byte) 0x00, // 202: LD V1, 00
+            (byte) 0xA2, (byte) 0x20, // 204: LD I, 220
+            (byte) 0xD0, (byte) 0x15, // 206: DRW V0, V1, 5
+            (byte) 0x70, (byte) 0x03, // 208: ADD V0, 03
+            (byte) 0x71, (byte) 0x01, // 20A: ADD V1, 01
+            (byte) 0x22, (byte) 0x18, // 20C: CALL 218
+            (byte) 0x32, (byte) 0x00, // 20E: SE V2, 00
+            (byte) 0x12, (byte) 0x04, // 210: JP 204
+            (byte) 0x00, (byte) 0xE0, // 212: CLS
+            (byte) 0x12, (byte) 0x04, // 214: JP 204
+            (byte) 0x00, (byte) 0x00, // 216: padding
+            (byte) 0xC2, (byte) 0x07, // 218: RND V2, 07
+            (byte) 0xA2, (byte) 0x30, // 21A: LD I, 230
+            (byte) 0xF2, (byte) 0x33, // 21C: LD B, V2
+            (byte) 0x00, (byte) 0xEE, // 21E: RET
+            (byte) 0xF0, (byte) 0x90, (byte) 0x90, (byte) 0x90, (byte) 0xF0 // 220: sprite
+    };
+
+    @Test
+    public void shouldNotAllocateWhileSteppingFrames() {
+        //Given
+        assumeAllocationCountingIsSupported();
+        load(SPRITE_HEAVY_PROGRAM);
+        runFrames(WARM_UP_FRAMES);
+        //When
+        long allocated = Long.MAX_VALUE;
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            long before = allocatedBytes();
+            runFrames(MEASURED_FRAMES);
+            allocated = Math.min(allocated, allocatedBytes() - before);
+        }
+        //Then
+        Assert.assertTrue("Allocated " + allocated + " bytes in " + MEASURED_FRAMES + " frames",
+                allocated < ALLOCATION_TOLERANCE_IN_BYTES);
+    }
+
+    private void runFrames(int frames) {
+        for (int i = 0; i < frames; i++) {
+            chip8.stepTimes(16);
+        }
+    }
+
+    private static long allocatedBytes() {
+        return threadMXBean().getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static com.sun.management.ThreadMXBean threadMXBean() {
+        return (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    }
+
+    private static void assumeAllocationCountingIsSupported() {
+        Assume.assumeTrue(threadMXBean().isThreadAllocatedMemorySupported());
+        threadMXBean().setThreadAllocatedMemoryEnabled(true);
+    }
+}
@@ -9,6 +9,7 @@ import org.junit.Test;
 import java.util.Arrays;
 
 import static com.pbeder.chip8.Fonts.FONT_HEIGHT;
+import static java.lang.System.arraycopy;
 import static org.junit.Assert.assertThat;
 
 public abstract class Chip8TestBase {
@@ -23,6 +24,16 @@ public abstract class Chip8TestBase {
         return () -> {};
     }
 
+    // Copies program to where ROMs are loaded and points pc at it
+    void load(byte[] program) {
+        load(chip8, program);
+    }
+
+    static void load(Chip8 chip8, byte[] program) {
+        arraycopy(program, 0, chip8.memory, 0x200, program.length);
+        chip8.pc = 0x200;
+    }
+
     void assertProgramCounterIs(int previousFrameAddress) {
         //Chip8 PC is 12 bit but in Java I've used short to represent it that's why 0xFFF
         assertThat(chip8.pc, Is.is((short) (previousFrameAddress & 0xFFF)));
@@ -692,7 +692,50 @@ public class CpuTest extends Chip8TestBase {
     }
 
     // EX9E	Skips the next instruction if the key stored in VX is pressed.
+    @Test
+    public void shouldSkipWhenKeyInVxIsPressed() {
+        //Given
+        short opCode = (short) 0xE39E;
+        chip8.registers[3] = 0xC;
+        chip8.setKey((byte) 0xC, true);
+        short pc = 0x5;
+        chip8.pc = pc;
+        //When
+        chip8.handleOpcode(opCode);
+        //Then
+        assertProgramCounterIs(pc + 2 * INSTRUCTION_SIZE_IN_BYTES);
+    }
+
+    @Test
+    public void shouldReadOnlyLowNibbleOfVxAsKey() {
+        //Given
+        short opCode = (short) 0xE39E;
+        chip8.registers[3] = 0x1C;
+        chip8.setKey((byte) 0xC, true);
+        short pc = 0x5;
+        chip8.pc = pc;
+        //When
+        chip8.handleOpcode(opCode);
+        //Then
+        assertProgramCounterIs(pc + 2 * INSTRUCTION_SIZE_IN_BYTES);
+    }
+
     // EXA1	Skips the next instruction if the key stored in VX isn't pressed.
+    @Test
+    public void shouldNotAliasVxAboveFOntoOtherKeys() {
+        //Given
+        short opCode = (short) 0xE3A1;
+        // Key F is the sign bit of the key bits and used to leak into every Vx from 10 to 1F
+        chip8.registers[3] = 0x10;
+        chip8.setKey((byte) 0xF, true);
+        short pc = 0x5;
+        chip8.pc = pc;
+        //When
+        chip8.handleOpcode(opCode);
+        //Then
+        assertProgramCounterIs(pc + 2 * INSTRUCTION_SIZE_IN_BYTES);
+    }
+
     // FX07	Sets VX to the value of the delay timer.
     // FX0A	A key press is awaited, and then stored in VX.
     // FX15	Sets the delay timer to VX.
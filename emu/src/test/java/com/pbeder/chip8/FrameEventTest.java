@@ -0,0 +1,69 @@
+package com.pbeder.chip8;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.hamcrest.core.Is;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertThat;
+
+public class FrameEventTest extends Chip8TestBase {
+
+    private static final String FRAME_EVENT = "com.pbeder.chip8.Frame";
+
+    // Clears, draws and counts, four instructions per iteration
+    private static final byte[] DRAWING_PROGRAM = {
+            (byte) 0x00, (byte) 0xE0, // 200: CLS
+            (byte) 0xD0, (byte) 0x11, // 202: DRW V0, V1, 1
+            (byte) 0x72, (byte) 0x01, // 204: ADD V2, 01
+            (byte) 0x12, (byte) 0x00, // 206: JP 200
+    };
+
+    @Test
+    public void shouldKeepRunAheadOutOfRealFrame() throws IOException {
+        //Given
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.enable(FRAME_EVENT);
+            recording.start();
+            Chip8 chip8 = new Chip8(() -> {});
+            load(chip8, DRAWING_PROGRAM);
+            //When
+            chip8.executeInstructions(5);
+            new RunAhead(2).capture(chip8, 10, new Frame(), -1);
+            chip8.executeInstructions(5);
+            chip8.tickTimers();
+            recording.stop();
+            events = read(recording);
+        }
+        //Then
+        List<RecordedEvent> real = events.stream().filter(event -> !event.getBoolean("speculative")).collect(Collectors.toList());
+        List<RecordedEvent> speculative = events.stream().filter(event -> event.getBoolean("speculative")).collect(Collectors.toList());
+        assertThat(real.size(), Is.is(1));
+        assertThat(real.get(0).getLong("instructions"), Is.is(10L));
+        // CLS DRW ADD JP CLS, then DRW ADD JP CLS DRW once run-ahead restored pc
+        assertThat(real.get(0).getLong("sprites"), Is.is(3L));
+        assertThat(real.get(0).getLong("clears"), Is.is(3L));
+        assertThat(speculative.size(), Is.is(2));
+        assertThat(speculative.get(0).getLong("instructions"), Is.is(10L));
+    }
+
+    private static List<RecordedEvent> read(Recording recording) throws IOException {
+        Path file = Files.createTempFile("frames", ".jfr");
+        try {
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file).stream()
+                    .filter(event -> event.getEventType().getName().equals(FRAME_EVENT))
+                    .collect(Collectors.toList());
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
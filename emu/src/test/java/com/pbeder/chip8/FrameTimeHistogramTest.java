@@ -0,0 +1,80 @@
+package com.pbeder.chip8;
+
+import org.hamcrest.core.Is;
+import org.junit.Test;
+
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class FrameTimeHistogramTest {
+
+    private static final long MILLISECOND = 1_000_000L;
+
+    @Test
+    public void shouldReportPercentilesWithinBucketPrecision() {
+        //Given
+        FrameTimeHistogram histogram = new FrameTimeHistogram(100);
+        //When
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * MILLISECOND);
+        }
+        //Then
+        assertWithinSixteenth(histogram.percentile(50), 50 * MILLISECOND);
+        assertWithinSixteenth(histogram.percentile(99), 99 * MILLISECOND);
+        assertThat(histogram.max(), Is.is(100 * MILLISECOND));
+        assertThat(histogram.percentile(100), Is.is(100 * MILLISECOND));
+    }
+
+    @Test
+    public void shouldForgetValuesThatLeftTheWindow() {
+        //Given
+        FrameTimeHistogram histogram = new FrameTimeHistogram(10);
+        histogram.record(500 * MILLISECOND);
+        //When
+        for (int i = 0; i < 10; i++) {
+            histogram.record(16 * MILLISECOND);
+        }
+        //Then
+        assertThat(histogram.size(), Is.is(10));
+        assertThat(histogram.max(), Is.is(16 * MILLISECOND));
+        assertThat(histogram.countAbove(17 * MILLISECOND), Is.is(0));
+        assertWithinSixteenth(histogram.percentile(99), 16 * MILLISECOND);
+    }
+
+    @Test
+    public void shouldCountValuesAboveThreshold() {
+        //Given
+        FrameTimeHistogram histogram = new FrameTimeHistogram(10);
+        //When
+        histogram.record(16 * MILLISECOND);
+        histogram.record(33 * MILLISECOND);
+        histogram.record(50 * MILLISECOND);
+        //Then
+        assertThat(histogram.countAbove(25 * MILLISECOND), Is.is(2));
+    }
+
+    @Test
+    public void shouldReportZeroWhileEmpty() {
+        //Given
+        FrameTimeHistogram histogram = new FrameTimeHistogram(10);
+        //When
+        histogram.record(MILLISECOND);
+        histogram.clear();
+        //Then
+        assertThat(histogram.percentile(50), Is.is(0L));
+        assertThat(histogram.max(), Is.is(0L));
+    }
+
+    @Test
+    public void shouldCoverEveryNonNegativeLong() {
+        for (long value : new long[]{0, 15, 16, 31, 32, 1000, Long.MAX_VALUE}) {
+            int bucket = FrameTimeHistogram.bucket(value);
+            assertTrue(value + " above its bucket", value <= FrameTimeHistogram.highestValue(bucket));
+            assertTrue(value + " below its bucket", bucket == 0 || value > FrameTimeHistogram.highestValue(bucket - 1));
+        }
+    }
+
+    private static void assertWithinSixteenth(long actual, long expected) {
+        assertTrue(actual + " not within 1/16 of " + expected, actual >= expected && actual <= expected + expected / 16);
+    }
+}
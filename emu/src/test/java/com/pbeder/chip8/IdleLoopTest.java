@@ -0,0 +1,77 @@
+package com.pbeder.chip8;
+
+import org.hamcrest.core.Is;
+import org.junit.Test;
+
+import static org.junit.Assert.assertThat;
+
+public class IdleLoopTest extends Chip8TestBase {
+
+    private static final int INSTRUCTIONS_PER_FRAME = 100;
+
+    // Waits for the delay timer three times, counting the waits in V2, then halts
+    private static final byte[] DELAY_PROGRAM = {
+            (byte) 0x60, (byte) 0x0A, // 200: LD V0, 0A
+            (byte) 0xF0, (byte) 0x15, // 202: LD DT, V0
+            (byte) 0xF1, (byte) 0x07, // 204: LD V1, DT
+            (byte) 0x31, (byte) 0x00, // 206: SE V1, 00
+            (byte) 0x12, (byte) 0x04, // 208: JP 204
+            (byte) 0x72, (byte) 0x01, // 20A: ADD V2, 01
+            (byte) 0x32, (byte) 0x03, // 20C: SE V2, 03
+            (byte) 0x12, (byte) 0x02, // 20E: JP 202
+            (byte) 0x12, (byte) 0x10, // 210: JP 210
+    };
+
+    // Busy loop that counts in V3, has to be interpreted
+    private static final byte[] COUNTING_PROGRAM = {
+            (byte) 0x73, (byte) 0x01, // 200: ADD V3, 01
+            (byte) 0x12, (byte) 0x00, // 202: JP 200
+    };
+
+    @Test
+    public void shouldEndInSameStateAsInterpreterWhenSkippingDelayLoops() {
+        //Given
+        Chip8 interpreted = new Chip8(() -> {});
+        interpreted.setIdleLoopSkipping(false);
+        load(interpreted, DELAY_PROGRAM);
+        load(chip8, DELAY_PROGRAM);
+        //When
+        for (int frame = 0; frame < 40; frame++) {
+            interpreted.stepTimes(INSTRUCTIONS_PER_FRAME);
+            chip8.stepTimes(INSTRUCTIONS_PER_FRAME);
+            //Then
+            assertThat(chip8.pc, Is.is(interpreted.pc));
+            assertThat(chip8.registers, Is.is(interpreted.registers));
+            assertThat(chip8.delayTimer, Is.is(interpreted.delayTimer));
+        }
+        assertProgramCounterIs(0x210);
+        assertRegisterXIs(2, 3);
+        assertThat(chip8.getInstructionCount() + chip8.getIdleInstructionsSkipped(), Is.is(interpreted.getInstructionCount()));
+        assertThat(chip8.getIdleInstructionsSkipped() > 0, Is.is(true));
+        assertThat(interpreted.getIdleInstructionsSkipped(), Is.is(0L));
+        assertThat(chip8.isIdle(), Is.is(true));
+    }
+
+    @Test
+    public void shouldInterpretLoopsThatChangeState() {
+        //Given
+        load(chip8, COUNTING_PROGRAM);
+        //When
+        chip8.stepTimes(INSTRUCTIONS_PER_FRAME);
+        //Then
+        assertRegisterXIs(3, INSTRUCTIONS_PER_FRAME / 2);
+        assertThat(chip8.getIdleInstructionsSkipped(), Is.is(0L));
+        assertThat(chip8.isIdle(), Is.is(false));
+    }
+
+    @Test
+    public void shouldResetSkippedInstructionsWhenRomIsLoaded() {
+        //Given
+        load(chip8, DELAY_PROGRAM);
+        chip8.stepTimes(INSTRUCTIONS_PER_FRAME);
+        //When
+        chip8.loadFromBytes(COUNTING_PROGRAM);
+        //Then
+        assertThat(chip8.getIdleInstructionsSkipped(), Is.is(0L));
+    }
+}
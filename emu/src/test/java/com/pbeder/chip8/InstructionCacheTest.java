@@ -0,0 +1,98 @@
+package com.pbeder.chip8;
+
+import org.hamcrest.core.Is;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static com.pbeder.chip8.SelfModifyingCodeTest.SELF_MODIFYING_PROGRAM;
+import static com.pbeder.chip8.SelfModifyingCodeTest.runFrames;
+import static org.junit.Assert.assertThat;
+
+public class InstructionCacheTest extends Chip8TestBase {
+
+    private static final byte[] COUNTING_LOOP = {
+            (byte) 0x70, (byte) 0x01, // 200: ADD V0, 01
+            (byte) 0x12, (byte) 0x00, // 202: JP 200
+    };
+
+    @Before
+    public void disableIdleLoopSkipping() {
+        chip8.setIdleLoopSkipping(false);
+    }
+
+    @Test
+    public void shouldDecodeEachAddressOnceWithSwitchDispatch() {
+        //Given
+        chip8.setDispatchMode(DispatchMode.SWITCH);
+        load(COUNTING_LOOP);
+        //When
+        chip8.executeInstructions(10);
+        //Then
+        assertRegisterXIs(0, 5);
+        assertThat(chip8.getInstructionCacheMisses(), Is.is(2L));
+        assertThat(chip8.getInstructionCacheHits(), Is.is(8L));
+    }
+
+    @Test
+    public void shouldDecodeEachAddressOnceWithTableDispatch() {
+        //Given
+        chip8.setDispatchMode(DispatchMode.TABLE);
+        load(COUNTING_LOOP);
+        //When
+        chip8.executeInstructions(10);
+        //Then
+        assertRegisterXIs(0, 5);
+        assertThat(chip8.getInstructionCacheMisses(), Is.is(2L));
+        assertThat(chip8.getInstructionCacheHits(), Is.is(8L));
+    }
+
+    @Test
+    public void shouldKeepPredecodedInstructionsWhenLoadedStateHasSameCode() {
+        //Given
+        load(COUNTING_LOOP);
+        chip8.executeInstructions(10);
+        ByteBuffer state = ByteBuffer.allocate(Chip8.STATE_SIZE);
+        chip8.saveState(state);
+        chip8.executeInstructions(10);
+        //When
+        state.flip();
+        chip8.loadState(state);
+        chip8.executeInstructions(10);
+        //Then
+        assertThat(chip8.getInstructionCacheInvalidations(), Is.is(0L));
+        assertThat(chip8.getInstructionCacheMisses(), Is.is(2L));
+    }
+
+    @Test
+    public void shouldDropPredecodedInstructionWhenLoadedStateHasOtherCode() {
+        //Given
+        load(COUNTING_LOOP);
+        ByteBuffer state = ByteBuffer.allocate(Chip8.STATE_SIZE);
+        chip8.saveState(state);
+        chip8.memory[0x201] = 0x02; // 200: ADD V0, 02
+        chip8.executeInstructions(10);
+        //When
+        state.flip();
+        chip8.loadState(state);
+        chip8.executeInstructions(10);
+        //Then
+        assertThat(chip8.getInstructionCacheInvalidations(), Is.is(1L));
+        assertRegisterXIs(0, 5);
+    }
+
+    @Test
+    public void shouldDropPredecodedInstructionWhenFx55OverwritesIt() {
+        //Given
+        chip8.setDispatchMode(DispatchMode.TABLE);
+        load(SELF_MODIFYING_PROGRAM);
+        //When
+        runFrames(chip8);
+        //Then
+        assertRegisterXIs(2, 100 + 5 * 100);
+        // Patch is applied after each of the two loops, only the first one is followed by a refetch of 202
+        assertThat(chip8.getInstructionCacheInvalidations(), Is.is(2L));
+        assertThat(chip8.getInstructionCacheMisses(), Is.is((long) SELF_MODIFYING_PROGRAM.length / 2 + 1));
+    }
+}
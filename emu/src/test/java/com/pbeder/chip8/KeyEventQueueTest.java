@@ -0,0 +1,54 @@
+package com.pbeder.chip8;
+
+import org.hamcrest.core.Is;
+import org.junit.Test;
+
+import static org.junit.Assert.assertThat;
+
+public class KeyEventQueueTest extends Chip8TestBase {
+
+    private final KeyEventQueue queue = new KeyEventQueue();
+
+    @Test
+    public void shouldDeliverEventsInOrderTheyWereOffered() {
+        //Given
+        queue.offer(10, (byte) 0xA, true);
+        queue.offer(20, (byte) 0xA, false);
+        queue.offer(30, (byte) 0x3, true);
+        //When
+        long first = queue.peekTimestamp();
+        queue.deliver(chip8);
+        boolean pressedAfterFirst = chip8.isKeyPressed((byte) 0xA);
+        long second = queue.peekTimestamp();
+        queue.deliver(chip8);
+        //Then
+        assertThat(first, Is.is(10L));
+        assertThat(pressedAfterFirst, Is.is(true));
+        assertThat(second, Is.is(20L));
+        assertThat(chip8.isKeyPressed((byte) 0xA), Is.is(false));
+        assertThat(queue.peekTimestamp(), Is.is(30L));
+    }
+
+    @Test
+    public void shouldDropEventsWhenFull() {
+        //Given
+        for (int i = 0; i < KeyEventQueue.CAPACITY; i++) {
+            queue.offer(i, (byte) 1, true);
+        }
+        //When
+        boolean offered = queue.offer(KeyEventQueue.CAPACITY, (byte) 1, false);
+        //Then
+        assertThat(offered, Is.is(false));
+        assertThat(queue.peekTimestamp(), Is.is(0L));
+    }
+
+    @Test
+    public void shouldBeEmptyOnceEverythingWasDelivered() {
+        //Given
+        queue.offer(1, (byte) 5, true);
+        //When
+        queue.deliver(chip8);
+        //Then
+        assertThat(queue.peekTimestamp(), Is.is(KeyEventQueue.EMPTY));
+    }
+}
@@ -0,0 +1,84 @@
+package com.pbeder.chip8;
+
+import org.hamcrest.core.Is;
+import org.junit.Test;
+
+import static org.junit.Assert.assertThat;
+
+public class KeyWaitTest extends Chip8TestBase {
+
+    private static final int INSTRUCTIONS_PER_FRAME = 10;
+
+    // Starts the delay timer, waits for a key into V1 and counts in V2 afterwards
+    private static final byte[] KEY_WAIT_PROGRAM = {
+            (byte) 0x60, (byte) 0x05, // 200: LD V0, 05
+            (byte) 0xF0, (byte) 0x15, // 202: LD DT, V0
+            (byte) 0xF1, (byte) 0x0A, // 204: LD V1, K
+            (byte) 0x72, (byte) 0x01, // 206: ADD V2, 01
+            (byte) 0x12, (byte) 0x06, // 208: JP 206
+    };
+
+    @Test
+    public void shouldParkWithoutExecutingWhileNoKeyIsPressed() {
+        //Given
+        load(KEY_WAIT_PROGRAM);
+        //When
+        for (int frame = 0; frame < 3; frame++) {
+            chip8.stepTimes(INSTRUCTIONS_PER_FRAME);
+        }
+        //Then
+        assertThat(chip8.isWaitingForKey(), Is.is(true));
+        assertProgramCounterIs(0x206);
+        assertRegisterXIs(2, 0);
+        assertThat(chip8.delayTimer, Is.is((short) 2));
+        // LD, LD DT and Fx0A itself, the rest of the budget passed while parked
+        assertThat(chip8.getInstructionCount(), Is.is(3L));
+        assertThat(chip8.getCycleCount(), Is.is(3L * INSTRUCTIONS_PER_FRAME));
+    }
+
+    @Test
+    public void shouldStoreKeyAndResumeWhenKeyIsPressed() {
+        //Given
+        load(KEY_WAIT_PROGRAM);
+        chip8.stepTimes(INSTRUCTIONS_PER_FRAME);
+        //When
+        chip8.setKey((byte) 0xB, true);
+        chip8.executeInstructions(4);
+        //Then
+        assertThat(chip8.isWaitingForKey(), Is.is(false));
+        assertRegisterXIs(1, 0xB);
+        assertRegisterXIs(2, 2);
+    }
+
+    @Test
+    public void shouldNotWaitWhenKeyIsAlreadyPressed() {
+        //Given
+        load(KEY_WAIT_PROGRAM);
+        chip8.setKey((byte) 0x3, true);
+        //When
+        chip8.executeInstructions(3);
+        //Then
+        assertThat(chip8.isWaitingForKey(), Is.is(false));
+        assertRegisterXIs(1, 0x3);
+        assertProgramCounterIs(0x206);
+    }
+
+    @Test
+    public void shouldNotReturnSameHeldKeyTwice() {
+        //Given
+        load(KEY_WAIT_PROGRAM);
+        chip8.setKey((byte) 0x3, true);
+        chip8.executeInstructions(3);
+        chip8.pc = 0x204;
+        //When
+        chip8.executeInstructions(1);
+        boolean waitingWhileHeld = chip8.isWaitingForKey();
+        chip8.setKey((byte) 0x3, false);
+        chip8.setKey((byte) 0x3, true);
+        chip8.executeInstructions(1);
+        //Then
+        assertThat(waitingWhileHeld, Is.is(true));
+        assertThat(chip8.isWaitingForKey(), Is.is(false));
+        assertThat(chip8.isKeyPressed((byte) 0x3), Is.is(true));
+    }
+}
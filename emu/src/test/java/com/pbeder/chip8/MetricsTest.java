@@ -0,0 +1,121 @@
+package com.pbeder.chip8;
+
+import org.hamcrest.core.Is;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MetricsTest extends Chip8TestBase {
+
+    // Starts the sound timer for two frames, then waits for a key
+    private static final byte[] BEEP_PROGRAM = {
+            (byte) 0x60, (byte) 0x02, // 200: LD V0, 02
+            (byte) 0xF0, (byte) 0x18, // 202: LD ST, V0
+            (byte) 0xF1, (byte) 0x0A, // 204: LD V1, K
+            (byte) 0x12, (byte) 0x06, // 206: JP 206
+    };
+
+    private final Metrics metrics = new Metrics();
+
+    @Test
+    public void shouldCountInstructionsFramesAndBeepsOfEveryInstance() {
+        //Given
+        Chip8 other = new Chip8(() -> {});
+        load(chip8, BEEP_PROGRAM);
+        load(other, BEEP_PROGRAM);
+        metrics.register(chip8);
+        metrics.register(other);
+        //When
+        for (int frame = 0; frame < 3; frame++) {
+            chip8.stepTimes(4);
+            other.stepTimes(4);
+        }
+        //Then
+        // Three instructions each before parking on Fx0A, the parked budget is not counted
+        assertThat(metrics.getInstructions(), Is.is(2 * 3L));
+        assertThat(metrics.getFrames(), Is.is(2 * 3L));
+        assertThat(metrics.getBeeps(), Is.is(2 * 2L));
+    }
+
+    @Test
+    public void shouldCountTimeBlockedOnKeyWait() {
+        //Given
+        load(chip8, BEEP_PROGRAM);
+        metrics.register(chip8);
+        chip8.stepTimes(4);
+        //When
+        chip8.setKey((byte) 5, true);
+        chip8.stepTimes(4);
+        //Then
+        assertTrue(metrics.getKeyWaitNanos() > 0);
+        assertRegisterXIs(1, 5);
+    }
+
+    @Test
+    public void shouldNotCountFramesRunAhead() {
+        //Given
+        load(chip8, BEEP_PROGRAM);
+        metrics.register(chip8);
+        chip8.stepTimes(1);
+        //When
+        new RunAhead(3).capture(chip8, 4, new Frame(), -1);
+        //Then
+        assertThat(metrics.getInstructions(), Is.is(1L));
+        assertThat(metrics.getFrames(), Is.is(1L));
+        assertThat(metrics.getBeeps(), Is.is(0L));
+        assertThat(metrics.getKeyWaitNanos(), Is.is(0L));
+    }
+
+    @Test
+    public void shouldCountExceptionsByType() {
+        //Given
+        load(chip8, new byte[]{(byte) 0x01, (byte) 0x23}); // 200: SYS 123
+        metrics.register(chip8);
+        //When
+        try {
+            chip8.stepTimes(1);
+            fail("0nnn should be unsupported");
+        } catch (UnsupportedOperationException e) {
+            //Then
+            assertThat(metrics.getExceptions("UnsupportedOperationException"), Is.is(1L));
+        }
+    }
+
+    @Test
+    public void shouldStopCountingWhenUnregistered() {
+        //Given
+        load(chip8, BEEP_PROGRAM);
+        metrics.register(chip8);
+        chip8.stepTimes(1);
+        //When
+        metrics.unregister(chip8);
+        chip8.stepTimes(1);
+        //Then
+        assertThat(metrics.getInstructions(), Is.is(1L));
+    }
+
+    @Test
+    public void shouldServePrometheusTextOnLocalhost() throws IOException {
+        //Given
+        load(chip8, BEEP_PROGRAM);
+        metrics.register(chip8);
+        chip8.stepTimes(4);
+        //When
+        String text;
+        try (MetricsServer server = MetricsServer.start(metrics, 0);
+             InputStream in = new URL("http://localhost:" + server.getPort() + "/metrics").openStream()) {
+            text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        //Then
+        assertTrue(text, text.contains("# TYPE chip8_instructions_total counter\nchip8_instructions_total 3\n"));
+        assertTrue(text, text.contains("chip8_frames_total 1\n"));
+        assertTrue(text, text.contains("chip8_thread_allocated_bytes{thread=\"" + Thread.currentThread().getId() + "\",instance=\"0\"} "));
+    }
+}
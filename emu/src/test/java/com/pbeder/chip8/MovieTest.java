@@ -0,0 +1,77 @@
+package com.pbeder.chip8;
+
+import org.hamcrest.core.Is;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+
+import static org.junit.Assert.assertThat;
+
+public class MovieTest extends Chip8TestBase {
+
+    private static final int CPU_FREQUENCY = 700;
+    private static final long MILLISECOND = 1_000_000L;
+
+    // Sums random numbers into V1 and counts in V3 while key 0 is held
+    private static final byte[] KEY_AND_RANDOM_PROGRAM = {
+            (byte) 0xC0, (byte) 0xFF, // 200: RND V0, FF
+            (byte) 0x81, (byte) 0x04, // 202: ADD V1, V0
+            (byte) 0xE2, (byte) 0x9E, // 204: SKP V2
+            (byte) 0x12, (byte) 0x00, // 206: JP 200
+            (byte) 0x73, (byte) 0x01, // 208: ADD V3, 01
+            (byte) 0x12, (byte) 0x00, // 20A: JP 200
+    };
+
+    private long now;
+
+    @Test
+    public void shouldReplayRecordedSessionExactly() throws IOException {
+        //Given
+        chip8.loadFromBytes(KEY_AND_RANDOM_PROGRAM);
+        ByteBuffer movie = record(chip8);
+        Chip8 replayed = new Chip8(() -> {});
+        replayed.loadFromBytes(KEY_AND_RANDOM_PROGRAM);
+        MoviePlayer player = new MoviePlayer(movie);
+        //When
+        player.start(replayed);
+        int frames = 0;
+        while (player.playFrame()) {
+            frames++;
+        }
+        //Then
+        assertThat(chip8.registers[3] != 0, Is.is(true));
+        assertThat(frames, Is.is((int) chip8.getFrameCount()));
+        assertThat(replayed.getInstructionCount(), Is.is(chip8.getInstructionCount()));
+        assertThat(replayed.pc, Is.is(chip8.pc));
+        assertThat(replayed.registers, Is.is(chip8.registers));
+        assertThat(player.isRecordedWith(KEY_AND_RANDOM_PROGRAM), Is.is(true));
+        assertThat(player.getCpuFrequency(), Is.is(CPU_FREQUENCY));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectFileThatIsNotMovie() {
+        //When
+        new MoviePlayer(ByteBuffer.allocate(64));
+    }
+
+    private ByteBuffer record(Chip8 chip8) throws IOException {
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        MovieRecorder recorder = MovieRecorder.start(chip8, KEY_AND_RANDOM_PROGRAM, CPU_FREQUENCY, Channels.newChannel(file));
+        Scheduler scheduler = new Scheduler(chip8, CPU_FREQUENCY, () -> now);
+        for (int i = 0; i < 200; i++) {
+            now += 7 * MILLISECOND;
+            if (i % 10 == 3) {
+                scheduler.postKey((byte) 0, true);
+            } else if (i % 10 == 6) {
+                scheduler.postKey((byte) 0, false);
+            }
+            now += 2 * MILLISECOND;
+            scheduler.advance();
+        }
+        recorder.close();
+        return ByteBuffer.wrap(file.toByteArray());
+    }
+}
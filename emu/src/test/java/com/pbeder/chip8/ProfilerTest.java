@@ -0,0 +1,124 @@
+package com.pbeder.chip8;
+
+import org.hamcrest.core.Is;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertThat;
+
+public class ProfilerTest extends Chip8TestBase {
+
+    // Adds 1 to V3 in an endless loop
+    private static final byte[] COUNTING_PROGRAM = {
+            (byte) 0x73, (byte) 0x01, // 200: ADD V3, 01
+            (byte) 0x12, (byte) 0x00, // 202: JP 200
+    };
+
+    // Calls 206 which calls 210, every routine executes two instructions per iteration
+    private static final byte[] CALLING_PROGRAM = {
+            (byte) 0x22, (byte) 0x06, // 200: CALL 206
+            (byte) 0x12, (byte) 0x00, // 202: JP 200
+            (byte) 0x00, (byte) 0x00, // 204
+            (byte) 0x22, (byte) 0x10, // 206: CALL 210
+            (byte) 0x00, (byte) 0xEE, // 208: RET
+            (byte) 0x00, (byte) 0x00, // 20A
+            (byte) 0x00, (byte) 0x00, // 20C
+            (byte) 0x00, (byte) 0x00, // 20E
+            (byte) 0x73, (byte) 0x01, // 210: ADD V3, 01
+            (byte) 0x00, (byte) 0xEE, // 212: RET
+    };
+
+    @Test
+    public void shouldCountInstructionsPerOpcodeFamilyAndAddress() {
+        //Given
+        load(chip8, COUNTING_PROGRAM);
+        Profiler profiler = chip8.startProfiling();
+        //When
+        chip8.stepTimes(10);
+        //Then
+        assertThat(profiler.getTotal(), Is.is(10L));
+        assertThat(profiler.getOpcodeCount("7xkk"), Is.is(5L));
+        assertThat(profiler.getOpcodeCount("1nnn"), Is.is(5L));
+        assertThat(profiler.getAddressCount(0x200), Is.is(5L));
+        assertThat(profiler.getAddressCount(0x202), Is.is(5L));
+    }
+
+    @Test
+    public void shouldCountSameInstructionsInEveryDispatchMode() {
+        for (DispatchMode mode : DispatchMode.values()) {
+            //Given
+            Chip8 chip8 = new Chip8(() -> {});
+            chip8.setDispatchMode(mode);
+            load(chip8, COUNTING_PROGRAM);
+            Profiler profiler = chip8.startProfiling();
+            //When
+            for (int frame = 0; frame < 20; frame++) {
+                chip8.stepTimes(10);
+            }
+            //Then
+            assertThat(mode.name(), profiler.getOpcodeCount("7xkk"), Is.is(100L));
+            assertThat(mode.name(), profiler.getAddressCount(0x202), Is.is(100L));
+        }
+    }
+
+    @Test
+    public void shouldStopCountingWhenProfilingStops() {
+        //Given
+        load(chip8, COUNTING_PROGRAM);
+        Profiler profiler = chip8.startProfiling();
+        chip8.stepTimes(4);
+        //When
+        chip8.stopProfiling();
+        chip8.stepTimes(4);
+        //Then
+        assertThat(profiler.getTotal(), Is.is(4L));
+    }
+
+    @Test
+    public void shouldWriteMostExecutedOpcodesFirstAndHeatMapByAddress() throws IOException {
+        //Given
+        load(chip8, COUNTING_PROGRAM);
+        Profiler profiler = chip8.startProfiling();
+        chip8.stepTimes(3);
+        StringBuilder opcodes = new StringBuilder();
+        StringBuilder heatMap = new StringBuilder();
+        //When
+        profiler.writeOpcodesCsv(opcodes);
+        profiler.writeHeatMapCsv(heatMap);
+        //Then
+        assertThat(opcodes.toString(), Is.is("opcode,count\n7xkk,2\n1nnn,1\n"));
+        assertThat(heatMap.toString(), Is.is("address,count\n0x200,2\n0x202,1\n"));
+    }
+
+    @Test
+    public void shouldAttributeInstructionsToCallPaths() throws IOException {
+        //Given
+        load(chip8, CALLING_PROGRAM);
+        Profiler profiler = chip8.startProfiling();
+        StringBuilder stacks = new StringBuilder();
+        //When
+        chip8.stepTimes(12);
+        profiler.writeCollapsedStacks(stacks);
+        //Then
+        assertThat(profiler.getSelfCount("main"), Is.is(4L));
+        assertThat(profiler.getSelfCount("main;0x206"), Is.is(4L));
+        assertThat(profiler.getSelfCount("main;0x206;0x210"), Is.is(4L));
+        assertThat(profiler.getSelfCount("main;0x210"), Is.is(0L));
+        assertThat(stacks.toString(), Is.is("main 4\nmain;0x206 4\nmain;0x206;0x210 4\n"));
+    }
+
+    @Test
+    public void shouldCountRoutinesEnteredBeforeProfilingStartedIntoMain() {
+        //Given
+        load(chip8, CALLING_PROGRAM);
+        chip8.stepTimes(2);
+        Profiler profiler = chip8.startProfiling();
+        //When
+        chip8.stepTimes(6);
+        //Then
+        // 210, 212, 208, 202 and 200 run in routines called before profiling started, then 206 is called again
+        assertThat(profiler.getSelfCount("main"), Is.is(5L));
+        assertThat(profiler.getSelfCount("main;0x206"), Is.is(1L));
+    }
+}
@@ -0,0 +1,109 @@
+package com.pbeder.chip8;
+
+import org.hamcrest.core.Is;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertThat;
+
+public class RewindTest extends Chip8TestBase {
+
+    // Draws a random sprite every frame and clears the screen now and then
+    private static final byte[] DRAWING_PROGRAM = {
+            (byte) 0xC0, (byte) 0x3F, // 200: RND V0, 3F
+            (byte) 0xC1, (byte) 0x1F, // 202: RND V1, 1F
+            (byte) 0xF2, (byte) 0x29, // 204: LD F, V2
+            (byte) 0xD0, (byte) 0x15, // 206: DRW V0, V1, 5
+            (byte) 0x72, (byte) 0x01, // 208: ADD V2, 01
+            (byte) 0x42, (byte) 0x10, // 20A: SNE V2, 10
+            (byte) 0x00, (byte) 0xE0, // 20C: CLS
+            (byte) 0x42, (byte) 0x10, // 20E: SNE V2, 10
+            (byte) 0x62, (byte) 0x00, // 210: LD V2, 00
+            (byte) 0x12, (byte) 0x00, // 212: JP 200
+    };
+
+    @Test
+    public void shouldStepBackThroughEveryRecordedFrame() {
+        //Given
+        Rewind rewind = new Rewind(10);
+        load(DRAWING_PROGRAM);
+        List<byte[]> states = new ArrayList<>();
+        for (int frame = 0; frame < 100; frame++) {
+            chip8.stepTimes(9);
+            rewind.record(chip8);
+            states.add(state(chip8));
+        }
+        //When
+        for (int frame = 98; frame >= 0; frame--) {
+            rewind.stepBack(chip8);
+            //Then
+            assertThat(state(chip8), Is.is(states.get(frame)));
+        }
+        assertThat(rewind.stepBack(chip8), Is.is(false));
+    }
+
+    @Test
+    public void shouldDropOldestFramesWhenRingIsFull() {
+        //Given
+        Rewind rewind = new Rewind(20, 0);
+        load(DRAWING_PROGRAM);
+        //When
+        for (int frame = 0; frame < 100; frame++) {
+            chip8.stepTimes(9);
+            rewind.record(chip8);
+        }
+        //Then
+        assertThat(rewind.getFramesRecorded(), Is.is(20));
+    }
+
+    @Test
+    public void shouldStayWithinCapacityWhenFramesChangeALot() {
+        //Given
+        Rewind rewind = new Rewind(1000, 3 * Chip8.STATE_SIZE);
+        load(DRAWING_PROGRAM);
+        List<byte[]> states = new ArrayList<>();
+        //When
+        for (int frame = 0; frame < 200; frame++) {
+            chip8.stepTimes(9);
+            Arrays.fill(chip8.memory, 0x300, 0xF00, (byte) frame);
+            rewind.record(chip8);
+            states.add(state(chip8));
+        }
+        rewind.stepBack(chip8);
+        //Then
+        assertThat(rewind.getFramesRecorded() < 200, Is.is(true));
+        assertThat(state(chip8), Is.is(states.get(198)));
+    }
+
+    @Test
+    public void shouldContinueRecordingFromRewoundFrame() {
+        //Given
+        Rewind rewind = new Rewind(10);
+        load(DRAWING_PROGRAM);
+        for (int frame = 0; frame < 10; frame++) {
+            chip8.stepTimes(9);
+            rewind.record(chip8);
+        }
+        for (int frame = 0; frame < 5; frame++) {
+            rewind.stepBack(chip8);
+        }
+        byte[] rewound = state(chip8);
+        //When
+        chip8.stepTimes(9);
+        rewind.record(chip8);
+        rewind.stepBack(chip8);
+        //Then
+        assertThat(state(chip8), Is.is(rewound));
+        assertThat(rewind.getFramesRecorded(), Is.is(4));
+    }
+
+    private static byte[] state(Chip8 chip8) {
+        ByteBuffer buffer = ByteBuffer.allocate(Chip8.STATE_SIZE);
+        chip8.saveState(buffer);
+        return buffer.array();
+    }
+}
@@ -0,0 +1,68 @@
+package com.pbeder.chip8;
+
+import org.hamcrest.core.Is;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertThat;
+
+public class RunAheadTest extends Chip8TestBase {
+
+    private static final int INSTRUCTIONS_PER_FRAME = 10;
+
+    // Beeps and moves a random sprite every frame
+    private static final byte[] BEEPING_PROGRAM = {
+            (byte) 0x00, (byte) 0xE0, // 200: CLS
+            (byte) 0xC0, (byte) 0x3F, // 202: RND V0, 3F
+            (byte) 0xC1, (byte) 0x1F, // 204: RND V1, 1F
+            (byte) 0xD0, (byte) 0x15, // 206: DRW V0, V1, 5
+            (byte) 0x62, (byte) 0x02, // 208: LD V2, 02
+            (byte) 0xF2, (byte) 0x18, // 20A: LD ST, V2
+            (byte) 0x12, (byte) 0x00, // 20C: JP 200
+    };
+
+    private int beeps;
+
+    @Test
+    public void shouldPresentFrameAheadAndLeaveChip8Untouched() {
+        //Given
+        Chip8 chip8 = new Chip8(() -> beeps++, 3L);
+        Chip8 ahead = new Chip8(() -> {}, 3L);
+        load(chip8, BEEPING_PROGRAM);
+        load(ahead, BEEPING_PROGRAM);
+        chip8.stepTimes(INSTRUCTIONS_PER_FRAME);
+        byte[] before = state(chip8);
+        int beepsBefore = beeps;
+        Frame frame = new Frame();
+        //When
+        new RunAhead(2).capture(chip8, INSTRUCTIONS_PER_FRAME, frame, -1);
+        //Then
+        for (int i = 0; i < 3; i++) {
+            ahead.stepTimes(INSTRUCTIONS_PER_FRAME);
+        }
+        for (int y = 0; y < Chip8.SCREEN_HEIGHT; y++) {
+            assertThat(frame.getRow(y), Is.is(ahead.getScreenRow(y)));
+        }
+        assertThat(state(chip8), Is.is(before));
+        assertThat(beeps, Is.is(beepsBefore));
+    }
+
+    @Test
+    public void shouldCountFramesThrownAway() {
+        //Given
+        load(chip8, BEEPING_PROGRAM);
+        RunAhead runAhead = new RunAhead(3);
+        //When
+        runAhead.capture(chip8, INSTRUCTIONS_PER_FRAME, new Frame(), -1);
+        runAhead.capture(chip8, INSTRUCTIONS_PER_FRAME, new Frame(), -1);
+        //Then
+        assertThat(runAhead.getSpeculativeFrames(), Is.is(6L));
+    }
+
+    private static byte[] state(Chip8 chip8) {
+        ByteBuffer buffer = ByteBuffer.allocate(Chip8.STATE_SIZE);
+        chip8.saveState(buffer);
+        return buffer.array();
+    }
+}
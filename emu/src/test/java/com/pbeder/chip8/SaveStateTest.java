@@ -0,0 +1,144 @@
+package com.pbeder.chip8;
+
+import org.hamcrest.core.Is;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class SaveStateTest extends Chip8TestBase {
+
+    // Draws random sprites all over the screen, calling a subroutine and storing BCD on the way
+    private static final byte[] RANDOM_DRAWING_PROGRAM = {
+            (byte) 0xC0, (byte) 0x3F, // 200: RND V0, 3F
+            (byte) 0xC1, (byte) 0x1F, // 202: RND V1, 1F
+            (byte) 0xA2, (byte) 0x10, // 204: LD I, 210
+            (byte) 0xD0, (byte) 0x15, // 206: DRW V0, V1, 5
+            (byte) 0x22, (byte) 0x16, // 208: CALL 216
+            (byte) 0xF0, (byte) 0x15, // 20A: LD DT, V0
+            (byte) 0x12, (byte) 0x00, // 20C: JP 200
+            (byte) 0x00, (byte) 0x00, // 20E: padding
+            (byte) 0xF0, (byte) 0x90, (byte) 0x90, (byte) 0x90, (byte) 0xF0, // 210: sprite
+            (byte) 0x00,              // 215: padding
+            (byte) 0xA3, (byte) 0x00, // 216: LD I, 300
+            (byte) 0xF0, (byte) 0x33, // 218: LD B, V0
+            (byte) 0x00, (byte) 0xEE, // 21A: RET
+    };
+
+    @Test
+    public void shouldContinueExactlyLikeTheOriginalAfterLoadingState() {
+        //Given
+        Chip8 original = new Chip8(() -> {}, 42L);
+        load(original, RANDOM_DRAWING_PROGRAM);
+        runFrames(original, 30);
+        ByteBuffer state = ByteBuffer.allocateDirect(Chip8.STATE_SIZE);
+        original.saveState(state);
+        state.flip();
+        //When
+        Chip8 restored = new Chip8(() -> {}, 7L);
+        restored.loadState(state);
+        runFrames(original, 30);
+        runFrames(restored, 30);
+        //Then
+        assertSameState(restored, original);
+        assertThat(state.remaining(), Is.is(0));
+    }
+
+    @Test
+    public void shouldRoundTripThroughMemoryMappedSlotFile() throws IOException {
+        //Given
+        load(chip8, RANDOM_DRAWING_PROGRAM);
+        runFrames(chip8, 10);
+        Path slot = Files.createTempFile("chip8", ".state");
+        Chip8 restored = new Chip8(() -> {});
+        //When
+        try (FileChannel channel = FileChannel.open(slot, READ, WRITE)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, Chip8.STATE_SIZE);
+            chip8.saveState(mapped);
+            mapped.rewind();
+            restored.loadState(mapped);
+        } finally {
+            Files.delete(slot);
+        }
+        //Then
+        assertSameState(restored, chip8);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectBufferThatIsNotSaveState() {
+        //Given
+        ByteBuffer garbage = ByteBuffer.allocate(Chip8.STATE_SIZE);
+        //When
+        chip8.loadState(garbage);
+    }
+
+    @Test
+    public void shouldRejectStateWithPcOutsideOfMemoryAndKeepCurrentState() {
+        assertCorruptStateIsRejected(state -> state.putShort(Chip8.STATE_PC_OFFSET, (short) Chip8.MEMORY_SIZE));
+    }
+
+    @Test
+    public void shouldRejectStateWithStackPointerOutsideOfStackAndKeepCurrentState() {
+        assertCorruptStateIsRejected(state -> state.put(Chip8.STATE_STACK_POINTER_OFFSET, (byte) (Chip8.RECURSION_DEPTH + 1)));
+    }
+
+    @Test
+    public void shouldRejectStateWithKeyRegisterThatIsNotRegisterAndKeepCurrentState() {
+        assertCorruptStateIsRejected(state -> state.put(Chip8.STATE_KEY_REGISTER_OFFSET, (byte) 0x10));
+    }
+
+    private void assertCorruptStateIsRejected(Consumer<ByteBuffer> corruption) {
+        //Given
+        load(chip8, RANDOM_DRAWING_PROGRAM);
+        chip8.executeInstructions(50);
+        ByteBuffer state = ByteBuffer.allocate(Chip8.STATE_SIZE);
+        chip8.saveState(state);
+        state.flip();
+        corruption.accept(state);
+        Chip8 current = new Chip8(() -> {}, 42L);
+        load(current, RANDOM_DRAWING_PROGRAM);
+        current.executeInstructions(20);
+        ByteBuffer before = ByteBuffer.allocate(Chip8.STATE_SIZE);
+        current.saveState(before);
+        //When
+        try {
+            current.loadState(state);
+            fail("Corrupt state was loaded");
+        } catch (IllegalArgumentException expected) {
+            //Then
+            ByteBuffer after = ByteBuffer.allocate(Chip8.STATE_SIZE);
+            current.saveState(after);
+            assertThat(after.array(), Is.is(before.array()));
+            assertThat(state.position(), Is.is(0));
+        }
+    }
+
+    private static void assertSameState(Chip8 actual, Chip8 expected) {
+        assertThat(actual.pc, Is.is(expected.pc));
+        assertThat(actual.I, Is.is(expected.I));
+        assertThat(actual.stackPointer, Is.is(expected.stackPointer));
+        assertThat(actual.stack, Is.is(expected.stack));
+        assertThat(actual.delayTimer, Is.is(expected.delayTimer));
+        assertThat(actual.registers, Is.is(expected.registers));
+        assertThat(actual.memory, Is.is(expected.memory));
+        assertThat(actual.getScreen(), Is.is(expected.getScreen()));
+        assertThat(actual.getInstructionCount(), Is.is(expected.getInstructionCount()));
+        assertThat(actual.getCycleCount(), Is.is(expected.getCycleCount()));
+    }
+
+    private static void runFrames(Chip8 chip8, int frames) {
+        for (int i = 0; i < frames; i++) {
+            chip8.stepTimes(10);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.pbeder.chip8;
+
+import org.hamcrest.core.Is;
+import org.junit.Test;
+
+import static org.junit.Assert.assertThat;
+
+public class SchedulerTest extends Chip8TestBase {
+
+    private static final long MILLISECOND = 1_000_000L;
+    private static final long SECOND = 1000 * MILLISECOND;
+    private static final short JUMP_TO_SELF = 0x1200;
+
+    private long now = 5 * SECOND;
+
+    @Test
+    public void shouldRunCpuFrequencyInstructionsAnd60TicksPerSecond() {
+        //Given
+        Scheduler scheduler = scheduler(600);
+        //When
+        for (int i = 0; i < 144; i++) {
+            now += SECOND / 144;
+            scheduler.advance();
+        }
+        now += SECOND % 144;
+        scheduler.advance();
+        //Then
+        assertThat(chip8.getCycleCount(), Is.is(600L));
+        assertThat(chip8.getFrameCount(), Is.is(60L));
+    }
+
+    @Test
+    public void shouldCatchUpOnTimerTicksMissedDuringShortStall() {
+        //Given
+        Scheduler scheduler = scheduler(600);
+        //When
+        now += 100 * MILLISECOND;
+        scheduler.advance();
+        //Then
+        assertThat(chip8.getFrameCount(), Is.is(6L));
+        assertThat(chip8.getCycleCount(), Is.is(60L));
+    }
+
+    @Test
+    public void shouldDropTimeBeyondCatchUpLimitAfterLongStall() {
+        //Given
+        Scheduler scheduler = scheduler(600);
+        //When
+        now += 10 * SECOND;
+        scheduler.advance();
+        //Then
+        assertThat(chip8.getFrameCount(), Is.is(15L));
+        assertThat(scheduler.getDroppedNanos(), Is.is(10 * SECOND - SECOND / 4));
+    }
+
+    @Test
+    public void shouldRecordHowLateTicksRan() {
+        //Given
+        Scheduler scheduler = scheduler(600);
+        //When
+        now += SECOND / 60 + 2 * MILLISECOND;
+        scheduler.advance();
+        now += SECOND / 60;
+        scheduler.advance();
+        //Then
+        assertThat(scheduler.getTickLateness().size(), Is.is(2));
+        assertThat(scheduler.getTickLateness().max(), Is.is(2 * MILLISECOND));
+    }
+
+    @Test
+    public void shouldDecrementDelayTimerAtTimerFrequencyRegardlessOfCpuFrequency() {
+        //Given
+        Scheduler scheduler = scheduler(1000);
+        chip8.delayTimer = 60;
+        //When
+        for (int i = 0; i < 10; i++) {
+            now += 50 * MILLISECOND;
+            scheduler.advance();
+        }
+        //Then
+        assertThat(chip8.delayTimer, Is.is((short) 30));
+    }
+
+    @Test
+    public void shouldApplyKeyEventAtInstructionMatchingItsTimestamp() {
+        //Given
+        Scheduler scheduler = scheduler(600);
+        // Counts loop iterations in V1 until key 0 goes down
+        load(new byte[]{
+                (byte) 0xE0, (byte) 0xA1, // 200: SKNP V0
+                (byte) 0x12, (byte) 0x08, // 202: JP 208
+                (byte) 0x71, (byte) 0x01, // 204: ADD V1, 01
+                (byte) 0x12, (byte) 0x00, // 206: JP 200
+                (byte) 0x12, (byte) 0x08  // 208: JP 208
+        });
+        //When
+        now += 5 * MILLISECOND;
+        scheduler.postKey((byte) 0, true);
+        now += 45 * MILLISECOND;
+        scheduler.advance();
+        //Then
+        // 5 ms at 600 Hz are 3 instructions, exactly one iteration
+        assertRegisterXIs(1, 1);
+        assertProgramCounterIs(0x208);
+    }
+
+    private Scheduler scheduler(int cpuFrequency) {
+        chip8.memory[0x200] = (byte) (JUMP_TO_SELF >>> 8);
+        chip8.memory[0x201] = (byte) JUMP_TO_SELF;
+        chip8.pc = 0x200;
+        return new Scheduler(chip8, cpuFrequency, () -> now);
+    }
+}
@@ -0,0 +1,92 @@
+package com.pbeder.chip8;
+
+import org.hamcrest.core.Is;
+import org.junit.Test;
+
+import java.nio.LongBuffer;
+
+import static org.junit.Assert.assertThat;
+
+public class ScreenTest extends Chip8TestBase {
+
+    @Test
+    public void shouldExposeSpriteAsPackedRow() {
+        //Given
+        Screen screen = new Screen(chip8);
+        //When
+        screen.drawSprite((byte) 4, (byte) 1, new byte[]{(byte) 0b10000001});
+        //Then
+        assertThat(screen.getRow(1), Is.is(0x0810_0000_0000_0000L));
+    }
+
+    @Test
+    public void shouldRotateSpriteAroundRightEdge() {
+        //Given
+        Screen screen = new Screen(chip8);
+        //When
+        screen.drawSprite((byte) 60, (byte) 0, new byte[]{(byte) 0xFF});
+        //Then
+        assertThat(screen.getRow(0), Is.is(0xF000_0000_0000_000FL));
+    }
+
+    @Test
+    public void shouldClipSpriteWhenWrappingIsDisabled() {
+        //Given
+        Screen screen = new Screen(chip8, false);
+        //When
+        screen.drawSprite((byte) 60, (byte) 31, new byte[]{(byte) 0xFF, (byte) 0xFF});
+        //Then
+        assertThat(screen.getRow(31), Is.is(0xFL));
+        assertThat(screen.getRow(0), Is.is(0L));
+    }
+
+    @Test
+    public void shouldNotAllowWritesThroughPackedRows() {
+        //Given
+        chip8.setPixel((byte) 0, (byte) 0);
+        //When
+        LongBuffer rows = chip8.getScreenRows();
+        //Then
+        assertThat(rows.isReadOnly(), Is.is(true));
+        assertThat(rows.get(0), Is.is(Long.MIN_VALUE));
+    }
+
+    @Test
+    public void shouldMarkRowsTouchedBySpriteAsDirty() {
+        //Given
+        Screen screen = new Screen(chip8);
+        //When
+        screen.drawSprite((byte) 0, (byte) 30, new byte[]{(byte) 0xFF, (byte) 0x00, (byte) 0x81});
+        //Then
+        assertThat(screen.takeDirtyRows(), Is.is(1 << 30 | 1 << 0));
+        assertThat(screen.getDirtyRows(), Is.is(0));
+        assertThat(screen.getVersion(), Is.is(1L));
+    }
+
+    @Test
+    public void shouldKeepVersionWhenNothingChanged() {
+        //Given
+        Screen screen = new Screen(chip8);
+        screen.setPixel((byte) 3, (byte) 2);
+        screen.takeDirtyRows();
+        //When
+        screen.setPixel((byte) 3, (byte) 2);
+        screen.drawSprite((byte) 0, (byte) 5, new byte[]{0});
+        //Then
+        assertThat(screen.getVersion(), Is.is(1L));
+        assertThat(screen.getDirtyRows(), Is.is(0));
+    }
+
+    @Test
+    public void shouldMarkOnlyLitRowsDirtyOnClear() {
+        //Given
+        Screen screen = new Screen(chip8);
+        screen.setPixel((byte) 0, (byte) 7);
+        screen.takeDirtyRows();
+        //When
+        screen.clear();
+        //Then
+        assertThat(screen.getDirtyRows(), Is.is(1 << 7));
+        assertThat(screen.getVersion(), Is.is(2L));
+    }
+}
@@ -0,0 +1,70 @@
+package com.pbeder.chip8;
+
+import org.hamcrest.core.Is;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertThat;
+
+public class SelfModifyingCodeTest extends Chip8TestBase {
+
+    private static final int FRAMES = 200;
+
+    // Loops 100 times adding 1 to V2, then patches the loop with Fx55 to add 5 instead and loops 100 times again
+    static final byte[] SELF_MODIFYING_PROGRAM = {
+            (byte) 0x63, (byte) 0x00, // 200: LD V3, 00
+            (byte) 0x72, (byte) 0x01, // 202: ADD V2, 01 <- patched to ADD V2, 05
+            (byte) 0x73, (byte) 0x01, // 204: ADD V3, 01
+            (byte) 0x33, (byte) 0x64, // 206: SE V3, 64
+            (byte) 0x12, (byte) 0x02, // 208: JP 202
+            (byte) 0x60, (byte) 0x72, // 20A: LD V0, 72
+            (byte) 0x61, (byte) 0x05, // 20C: LD V1, 05
+            (byte) 0xA2, (byte) 0x02, // 20E: LD I, 202
+            (byte) 0xF1, (byte) 0x55, // 210: LD [I], V1
+            (byte) 0x34, (byte) 0x01, // 212: SE V4, 01
+            (byte) 0x12, (byte) 0x18, // 214: JP 218
+            (byte) 0x12, (byte) 0x16, // 216: JP 216
+            (byte) 0x64, (byte) 0x01, // 218: LD V4, 01
+            (byte) 0x63, (byte) 0x00, // 21A: LD V3, 00
+            (byte) 0x12, (byte) 0x02, // 21C: JP 202
+    };
+
+    @Before
+    public void useTableDispatch() {
+        chip8.setDispatchMode(DispatchMode.TABLE);
+    }
+
+    @Test
+    public void shouldRunPatchedInstructionAfterFx55OverwritesIt() {
+        //Given
+        load(chip8, SELF_MODIFYING_PROGRAM);
+        //When
+        runFrames(chip8);
+        //Then
+        assertProgramCounterIs(0x216);
+        assertRegisterXIs(2, 100 + 5 * 100);
+    }
+
+    @Test
+    public void shouldEndInSameStateAsSwitchInterpreter() {
+        //Given
+        Chip8 interpreted = new Chip8(() -> {});
+        interpreted.setDispatchMode(DispatchMode.SWITCH);
+        load(interpreted, SELF_MODIFYING_PROGRAM);
+        load(chip8, SELF_MODIFYING_PROGRAM);
+        //When
+        runFrames(interpreted);
+        runFrames(chip8);
+        //Then
+        assertThat(chip8.pc, Is.is(interpreted.pc));
+        assertThat(chip8.I, Is.is(interpreted.I));
+        assertThat(chip8.registers, Is.is(interpreted.registers));
+        assertThat(chip8.memory, Is.is(interpreted.memory));
+    }
+
+    static void runFrames(Chip8 chip8) {
+        for (int i = 0; i < FRAMES; i++) {
+            chip8.stepTimes(7);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.pbeder.chip8;
+
+import org.hamcrest.core.Is;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertThat;
+
+public class SplitMixRandomByteTest {
+
+    private static final int STREAM_LENGTH = 64;
+
+    @Test
+    public void shouldRepeatStreamForSameSeed() {
+        //Given
+        SplitMixRandomByte first = new SplitMixRandomByte(0xC8);
+        SplitMixRandomByte second = new SplitMixRandomByte(0xC8);
+        //When
+        byte[] firstStream = stream(first);
+        byte[] secondStream = stream(second);
+        //Then
+        assertThat(firstStream, Is.is(secondStream));
+    }
+
+    @Test
+    public void shouldSplitIntoReproducibleIndependentStreams() {
+        //Given
+        SplitMixRandomByte parent = new SplitMixRandomByte(0xC8);
+        SplitMixRandomByte sameParent = new SplitMixRandomByte(0xC8);
+        //When
+        byte[] child = stream(parent.split());
+        byte[] sibling = stream(parent.split());
+        byte[] sameChild = stream(sameParent.split());
+        //Then
+        assertThat(child, Is.is(sameChild));
+        Assert.assertFalse(Arrays.equals(child, sibling));
+    }
+
+    private static byte[] stream(RandomByte random) {
+        byte[] bytes = new byte[STREAM_LENGTH];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = random.nextByte();
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,12 @@
+package com.pbeder.chip8;
+
+import org.junit.Before;
+
+// Runs every CpuTest case against the dispatch table, CpuTest itself covers the default switch interpreter
+public class TableDispatchCpuTest extends CpuTest {
+
+    @Before
+    public void useTableDispatch() {
+        chip8.setDispatchMode(DispatchMode.TABLE);
+    }
+}
@@ -0,0 +1,47 @@
+package com.pbeder.chip8;
+
+import org.hamcrest.core.Is;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertThat;
+
+public class TracerTest extends Chip8TestBase {
+
+    @Test
+    public void shouldDumpOnlyNewestRecordsOldestFirst() throws IOException {
+        //Given
+        Tracer tracer = new Tracer(4);
+        for (int i = 0; i < 6; i++) {
+            tracer.record((short) (0x200 + 2 * i), (short) (0x6000 + i), (short) 0x300, (byte) i);
+        }
+        Path file = Files.createTempFile("chip8", ".trace");
+        //When
+        ByteBuffer trace;
+        try {
+            tracer.dump(file);
+            trace = ByteBuffer.wrap(Files.readAllBytes(file));
+        } finally {
+            Files.delete(file);
+        }
+        //Then
+        assertThat(trace.remaining(), Is.is(Tracer.HEADER_SIZE + 4 * Tracer.RECORD_SIZE));
+        assertThat(trace.getInt(), Is.is(Tracer.MAGIC));
+        assertThat(trace.getShort(), Is.is(Tracer.VERSION));
+        assertThat(trace.getInt(), Is.is(4));
+        assertThat(trace.getShort(), Is.is((short) 0x204));
+        assertThat(trace.getShort(), Is.is((short) 0x6002));
+        assertThat(trace.getShort(), Is.is((short) 0x300));
+        assertThat(trace.get(), Is.is((byte) 2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectCapacityThatIsNotPowerOfTwo() {
+        //When
+        new Tracer(1000);
+    }
+}
@@ -0,0 +1,56 @@
+package com.pbeder.chip8;
+
+import org.hamcrest.core.Is;
+import org.junit.Assert;
+import org.junit.Test;
+
+import static org.junit.Assert.assertThat;
+
+public class TripleBufferTest extends Chip8TestBase {
+
+    private final TripleBuffer buffer = new TripleBuffer();
+
+    @Test
+    public void shouldHandOverLatestPublishedFrame() {
+        //Given
+        chip8.setPixel((byte) 0, (byte) 0);
+        publish();
+        chip8.setPixel((byte) 1, (byte) 0);
+        publish();
+        //When
+        Frame frame = buffer.acquire();
+        //Then
+        assertThat(frame.getRow(0), Is.is(0xC000_0000_0000_0000L));
+    }
+
+    @Test
+    public void shouldKeepFrontFrameUntilNewFrameIsPublished() {
+        //Given
+        chip8.setPixel((byte) 0, (byte) 0);
+        publish();
+        Frame first = buffer.acquire();
+        //When
+        Frame second = buffer.acquire();
+        //Then
+        Assert.assertTrue(first == second);
+    }
+
+    @Test
+    public void shouldNeverHandProducerTheFrameConsumerIsReading() {
+        //Given
+        publish();
+        Frame front = buffer.acquire();
+        //When
+        for (int i = 0; i < 5; i++) {
+            Assert.assertFalse(buffer.back() == front);
+            publish();
+        }
+        //Then
+        Assert.assertFalse(buffer.back() == front);
+    }
+
+    private void publish() {
+        buffer.back().capture(chip8, -1);
+        buffer.publish();
+    }
+}
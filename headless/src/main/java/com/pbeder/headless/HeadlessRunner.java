@@ -0,0 +1,122 @@
+package com.pbeder.headless;
+
+import com.pbeder.chip8.Chip8;
+import com.pbeder.chip8.Metrics;
+import com.pbeder.chip8.MetricsServer;
+import com.pbeder.chip8.MoviePlayer;
+import com.pbeder.chip8.Profiler;
+import com.pbeder.chip8.SessionEvent;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.locks.LockSupport;
+
+public class HeadlessRunner {
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final int FRAMES_PER_SECOND = 60;
+    private static final long NANOS_PER_FRAME = NANOS_PER_SECOND / FRAMES_PER_SECOND;
+    // Uncapped runs only look at the clock every so many frames, nanoTime would cost more than a frame
+    private static final int CLOCK_CHECK_INTERVAL = 256;
+
+    private final RunOptions options;
+    private final Chip8 chip8;
+    private final MoviePlayer player;
+
+    HeadlessRunner(RunOptions options) throws IOException {
+        this.options = options;
+        this.chip8 = options.seed == null ? new Chip8(() -> {}) : new Chip8(() -> {}, options.seed);
+        chip8.setDispatchMode(options.dispatchMode);
+        chip8.setIdleLoopSkipping(options.idleLoopSkipping);
+        byte[] rom = Files.readAllBytes(options.rom.toPath());
+        chip8.loadFromBytes(rom);
+        player = options.movie == null ? null : startReplay(rom);
+        int cpuFrequency = player == null ? options.instructionsPerFrame * FRAMES_PER_SECOND : player.getCpuFrequency();
+        SessionEvent.commit(options.rom.getName(), chip8, cpuFrequency, 0, 0);
+    }
+
+    private MoviePlayer startReplay(byte[] rom) throws IOException {
+        MoviePlayer player = MoviePlayer.read(options.movie.toPath());
+        if (!player.isRecordedWith(rom)) {
+            System.out.println("Movie " + options.movie + " was recorded with another ROM, replay will diverge");
+        }
+        player.start(chip8);
+        return player;
+    }
+
+    public static void main(String[] args) throws IOException {
+        RunOptions options = RunOptions.parse(args);
+        HeadlessRunner runner = new HeadlessRunner(options);
+        Profiler profiler = options.profileDirectory == null ? null : runner.chip8.startProfiling();
+        MetricsServer metricsServer = options.metricsPort == null ? null : serveMetrics(runner.chip8, options.metricsPort);
+        ThroughputReport report;
+        try {
+            report = runner.run();
+        } finally {
+            // Its executor threads would keep the JVM alive after an exception in the emulation
+            if (metricsServer != null) {
+                metricsServer.close();
+            }
+        }
+        System.out.println(report);
+        if (profiler != null) {
+            writeProfile(profiler, options.profileDirectory.toPath());
+        }
+    }
+
+    ThroughputReport run() {
+        final long start = System.nanoTime();
+        final long deadline = start + (long) (options.seconds * NANOS_PER_SECOND);
+        long now = start;
+        long nextFrame = start;
+        for (long frame = 0; frame < options.frames && now < deadline; frame++) {
+            if (player == null) {
+                chip8.stepTimes(options.instructionsPerFrame);
+            } else if (!player.playFrame()) {
+                break;
+            }
+            if (options.uncapped) {
+                if (frame % CLOCK_CHECK_INTERVAL == 0) {
+                    now = System.nanoTime();
+                }
+            } else {
+                nextFrame += NANOS_PER_FRAME;
+                now = sleepUntil(nextFrame);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        return new ThroughputReport(options.rom.getName(), chip8, elapsed);
+    }
+
+    private static MetricsServer serveMetrics(Chip8 chip8, int port) throws IOException {
+        Metrics metrics = new Metrics();
+        metrics.register(chip8);
+        MetricsServer server = MetricsServer.start(metrics, port);
+        System.out.println("Metrics at http://localhost:" + server.getPort() + "/metrics");
+        return server;
+    }
+
+    private static void writeProfile(Profiler profiler, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        try (Writer opcodes = Files.newBufferedWriter(directory.resolve("opcodes.csv"));
+             Writer heatMap = Files.newBufferedWriter(directory.resolve("heatmap.csv"));
+             Writer stacks = Files.newBufferedWriter(directory.resolve("stacks.txt"));
+             Writer json = Files.newBufferedWriter(directory.resolve("profile.json"))) {
+            profiler.writeOpcodesCsv(opcodes);
+            profiler.writeHeatMapCsv(heatMap);
+            profiler.writeCollapsedStacks(stacks);
+            profiler.writeJson(json);
+        }
+        System.out.println("Profile written to " + directory.toAbsolutePath());
+    }
+
+    private static long sleepUntil(long deadline) {
+        long now = System.nanoTime();
+        while (now < deadline) {
+            LockSupport.parkNanos(deadline - now);
+            now = System.nanoTime();
+        }
+        return now;
+    }
+}
@@ -0,0 +1,90 @@
+package com.pbeder.headless;
+
+import com.pbeder.chip8.DispatchMode;
+
+import java.io.File;
+
+class RunOptions {
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: headless <rom> [options]",
+            "  --uncapped       run as fast as possible instead of 60 frames per second",
+            "  --ipf <n>        instructions per frame, default 4",
+            "  --frames <n>     stop after n frames",
+            "  --seconds <s>    stop after s seconds of wall clock time, default 10",
+            "  --seed <n>       seed for the random number generator",
+            "  --dispatch <m>   SWITCH or TABLE, default SWITCH",
+            "  --no-idle-skip   interpret delay timer polling loops instead of skipping them",
+            "  --replay <file>  replay a recorded movie, stops when it ends, --ipf and --seed come from the movie",
+            "  --profile <dir>  write opcodes.csv, heatmap.csv, stacks.txt and profile.json of the executed instructions to dir",
+            "  --metrics <port> serve Prometheus metrics at http://localhost:<port>/metrics while running");
+
+    File rom;
+    boolean uncapped;
+    int instructionsPerFrame = 4;
+    long frames = Long.MAX_VALUE;
+    double seconds = 10;
+    Long seed;
+    DispatchMode dispatchMode = DispatchMode.SWITCH;
+    boolean idleLoopSkipping = true;
+    File movie;
+    File profileDirectory;
+    Integer metricsPort;
+
+    static RunOptions parse(String[] args) {
+        if (args.length == 0) {
+            exitWithUsage("Please provide *.ch8 file");
+        }
+        RunOptions options = new RunOptions();
+        options.rom = new File(args[0]);
+        if (!options.rom.isFile()) {
+            exitWithUsage("No such file " + options.rom);
+        }
+        try {
+            for (int i = 1; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--uncapped":
+                        options.uncapped = true;
+                        break;
+                    case "--ipf":
+                        options.instructionsPerFrame = Integer.parseInt(args[++i]);
+                        break;
+                    case "--frames":
+                        options.frames = Long.parseLong(args[++i]);
+                        break;
+                    case "--seconds":
+                        options.seconds = Double.parseDouble(args[++i]);
+                        break;
+                    case "--seed":
+                        options.seed = Long.decode(args[++i]);
+                        break;
+                    case "--dispatch":
+                        options.dispatchMode = DispatchMode.valueOf(args[++i]);
+                        break;
+                    case "--profile":
+                        options.profileDirectory = new File(args[++i]);
+                        break;
+                    case "--metrics":
+                        options.metricsPort = Integer.parseInt(args[++i]);
+                        break;
+                    case "--replay":
+                        options.movie = new File(args[++i]);
+                        break;
+                    case "--no-idle-skip":
+                        options.idleLoopSkipping = false;
+                        break;
+                    default:
+                        exitWithUsage("Unknown option " + args[i]);
+                }
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            exitWithUsage("Invalid option value");
+        }
+        return options;
+    }
+
+    private static void exitWithUsage(String message) {
+        System.out.println(message);
+        System.out.println(USAGE);
+        System.exit(1);
+    }
+}
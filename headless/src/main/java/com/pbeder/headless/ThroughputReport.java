@@ -0,0 +1,48 @@
+package com.pbeder.headless;
+
+import com.pbeder.chip8.Chip8;
+
+import static java.lang.String.format;
+
+class ThroughputReport {
+    private static final double NANOS_PER_SECOND = 1e9;
+    private final String rom;
+    private final long instructions;
+    private final long idleInstructions;
+    private final long frames;
+    private final long cacheHits;
+    private final long cacheMisses;
+    private final long cacheInvalidations;
+    private final long elapsedNanos;
+
+    ThroughputReport(String rom, Chip8 chip8, long elapsedNanos) {
+        this.rom = rom;
+        this.instructions = chip8.getInstructionCount();
+        this.idleInstructions = chip8.getIdleInstructionsSkipped();
+        this.frames = chip8.getFrameCount();
+        this.cacheHits = chip8.getInstructionCacheHits();
+        this.cacheMisses = chip8.getInstructionCacheMisses();
+        this.cacheInvalidations = chip8.getInstructionCacheInvalidations();
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    double instructionsPerSecond() {
+        return instructions * NANOS_PER_SECOND / elapsedNanos;
+    }
+
+    double framesPerSecond() {
+        return frames * NANOS_PER_SECOND / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.join(System.lineSeparator(),
+                format("ROM:                %s", rom),
+                format("Elapsed:            %.3f s", elapsedNanos / NANOS_PER_SECOND),
+                format("Executed:           %d", instructions),
+                format("Skipped as idle:    %d (%.1f%% of emulated)", idleInstructions, idleInstructions * 100.0 / Math.max(1, instructions + idleInstructions)),
+                format("Instructions/s:     %.0f", instructionsPerSecond()),
+                format("Frames/s:           %.1f", framesPerSecond()),
+                format("Decode cache:       %d hits, %d misses, %d invalidations", cacheHits, cacheMisses, cacheInvalidations));
+    }
+}